@@ -0,0 +1,115 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import io.openliberty.guides.inventory.client.LookupExecutor;
+import io.openliberty.guides.inventory.client.LoopbackSystemTransport;
+import io.openliberty.guides.inventory.client.SystemClient;
+
+/**
+ * Lookups through InventoryManager.getAsync() at fleet cardinality, with
+ * every system service answered in process by the loopback transport. The
+ * cache holds 10,000 hosts, so with more hosts most lookups fetch the
+ * properties again through the circuit breaker of their host, and add the
+ * host to the inventory. Tracing is the no-op API,
+ * or the SDK with every span sampled and discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FleetLookupBenchmark {
+
+    @Param({ "10000", "1000000" })
+    int hosts;
+
+    @Param({ "noop", "sdk" })
+    String tracing;
+
+    private SdkTracerProvider tracerProvider;
+    private SystemClient systemClient;
+    private InventoryManager manager;
+    private String[] hostnames;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Tracer tracer = OpenTelemetry.noop().getTracer("inventory");
+        if ("sdk".equals(tracing)) {
+            tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(BatchSpanProcessor.builder(
+                    SpanExporter.composite(List.of())).build())
+                .build();
+            tracer = tracerProvider.get("inventory");
+        }
+        manager = Inventories.newManager("heap",
+            OpenTelemetry.noop().getMeter("inventory"), tracer);
+        systemClient = new SystemClient(new LookupExecutor(ForkJoinPool.commonPool(), false),
+            new LoopbackSystemTransport("0", 0, "0"));
+        manager.systemClient = systemClient;
+        hostnames = new String[hosts];
+        for (int i = 0; i < hosts; i++) {
+            hostnames[i] = Inventories.hostname(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        systemClient.close();
+        manager.close();
+        if (tracerProvider != null) {
+            tracerProvider.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        String nextHost(String[] hostnames) {
+            next = next + 1 == hostnames.length ? 0 : next + 1;
+            return hostnames[next];
+        }
+    }
+
+    @Benchmark
+    public Properties lookup(Cursor cursor) {
+        return manager.getAsync(cursor.nextHost(hostnames)).toCompletableFuture().join();
+    }
+}
@@ -0,0 +1,74 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory;
+
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.trace.Tracer;
+
+import io.openliberty.guides.inventory.client.LookupExecutor;
+
+/**
+ * Creates inventory managers outside of Liberty, with the OpenTelemetry
+ * API stubbed by its no-op implementation.
+ */
+public final class Inventories {
+
+    private Inventories() {
+    }
+
+    public static InventoryManager newManager() {
+        return newManager("heap");
+    }
+
+    /**
+     * @param storeType
+     *          - heap or offheap, as in inventory.store.
+     */
+    public static InventoryManager newManager(String storeType) {
+        return newManager(storeType, OpenTelemetry.noop().getMeter("inventory"));
+    }
+
+    public static InventoryManager newManager(String storeType, Meter meter) {
+        return newManager(storeType, meter, OpenTelemetry.noop().getTracer("inventory"));
+    }
+
+    public static InventoryManager newManager(String storeType, Meter meter, Tracer tracer) {
+        InventoryManager manager = new InventoryManager();
+        manager.meter = meter;
+        manager.tracer = tracer;
+        manager.lookupExecutor = new LookupExecutor(ForkJoinPool.commonPool(), false);
+        manager.cacheTtl = 300;
+        manager.cacheMaxEntries = 10_000;
+        manager.batchParallelism = 16;
+        manager.batchHostTimeout = 5_000;
+        manager.storeType = storeType;
+        manager.storeDir = Optional.empty();
+        manager.init();
+        return manager;
+    }
+
+    public static String hostname(int i) {
+        return "host" + i + ".example.com";
+    }
+
+    public static Properties properties(String osName, String userName) {
+        Properties props = new Properties();
+        props.setProperty("os.name", osName);
+        props.setProperty("user.name", userName);
+        return props;
+    }
+}
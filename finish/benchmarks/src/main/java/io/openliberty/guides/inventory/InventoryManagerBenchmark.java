@@ -0,0 +1,108 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.openliberty.guides.inventory.model.InventoryList;
+
+/**
+ * InventoryManager.add() and list() on their own and mixed, under
+ * contention. Run with -t to set the number of threads for add and list,
+ * the readWrite group always runs three writers against one reader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryManagerBenchmark {
+
+    @Param({ "1000", "100000" })
+    int hosts;
+
+    @Param({ "heap", "offheap" })
+    String store;
+
+    private InventoryManager manager;
+    private String[] hostnames;
+    private Properties props;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manager = Inventories.newManager(store);
+        hostnames = new String[hosts];
+        props = Inventories.properties("Linux", "alice");
+        for (int i = 0; i < hosts; i++) {
+            hostnames[i] = Inventories.hostname(i);
+            manager.add(hostnames[i], props);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        manager.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        String nextHost(String[] hostnames) {
+            next = next + 1 == hostnames.length ? 0 : next + 1;
+            return hostnames[next];
+        }
+    }
+
+    @Benchmark
+    public void add(Cursor cursor) {
+        manager.add(cursor.nextHost(hostnames), props);
+    }
+
+    @Benchmark
+    public InventoryList list() {
+        return manager.list();
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public void write(Cursor cursor) {
+        manager.add(cursor.nextHost(hostnames), props);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public InventoryList read() {
+        return manager.list();
+    }
+}
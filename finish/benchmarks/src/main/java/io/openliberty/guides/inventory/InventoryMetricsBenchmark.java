@@ -0,0 +1,148 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory;
+
+import java.util.Collection;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.CollectionRegistration;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+
+import io.openliberty.guides.inventory.model.InventoryList;
+
+/**
+ * Cost of the metrics recorded by add() and list(), with the no-op meter
+ * and with the OpenTelemetry SDK. Run with -prof gc: the gc.alloc.rate.norm
+ * of add with the SDK meter should equal the one with the no-op meter,
+ * which is only the SystemData being stored, and list should allocate
+ * nothing but its result in both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryMetricsBenchmark {
+
+    private static final int HOSTS = 1_000;
+
+    @Param({ "noop", "sdk" })
+    String meter;
+
+    private SdkMeterProvider meterProvider;
+    private CollectingReader reader;
+    private InventoryManager manager;
+    private String[] hostnames;
+    private Properties[] props;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("sdk".equals(meter)) {
+            reader = new CollectingReader();
+            meterProvider = SdkMeterProvider.builder().registerMetricReader(reader).build();
+            manager = Inventories.newManager("heap", meterProvider.get("inventory"));
+        } else {
+            manager = Inventories.newManager("heap",
+                OpenTelemetry.noop().getMeter("inventory"));
+        }
+        hostnames = new String[HOSTS];
+        props = new Properties[] {
+            Inventories.properties("Linux", "alice"),
+            Inventories.properties("Windows 11", "bob"),
+            Inventories.properties("Mac OS X", "carol")
+        };
+        for (int i = 0; i < HOSTS; i++) {
+            hostnames[i] = Inventories.hostname(i);
+            manager.add(hostnames[i], props[i % props.length]);
+        }
+    }
+
+    // Collects like a metrics exporter would, so recording is measured
+    // against live aggregations
+    @TearDown(Level.Iteration)
+    public void collect() {
+        if (reader != null) {
+            reader.collect();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        manager.close();
+        if (meterProvider != null) {
+            meterProvider.close();
+        }
+    }
+
+    @Benchmark
+    public void add() {
+        int host = next = next + 1 == HOSTS ? 0 : next + 1;
+        manager.add(hostnames[host], props[host % props.length]);
+    }
+
+    @Benchmark
+    public InventoryList list() {
+        return manager.list();
+    }
+
+    private static class CollectingReader implements MetricReader {
+
+        private volatile CollectionRegistration registration = CollectionRegistration.noop();
+
+        @Override
+        public void register(CollectionRegistration registration) {
+            this.registration = registration;
+        }
+
+        Collection<MetricData> collect() {
+            return registration.collectAllMetrics();
+        }
+
+        @Override
+        public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+            return AggregationTemporality.CUMULATIVE;
+        }
+
+        @Override
+        public CompletableResultCode forceFlush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.Invocation.Builder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.openliberty.guides.inventory.Inventories;
+
+/**
+ * Preparing the request of each lookup: building the system service URL,
+ * and then the request builder either from a new target, as every lookup
+ * once did, or from the prepared target of the host. With more hosts than
+ * the 10,000 prepared targets kept, most lookups prepare their target
+ * again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemClientBenchmark {
+
+    @Param({ "1", "1000", "100000" })
+    int hosts;
+
+    private SystemClient client;
+    // Stands in for the shared client for the targets built on every lookup
+    private Client jaxrsClient;
+    private String[] hostnames;
+    private int next;
+    private int port = 9080;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        client = new SystemClient(new LookupExecutor(ForkJoinPool.commonPool(), false),
+                                  50, 10, 60);
+        jaxrsClient = ClientBuilder.newClient();
+        hostnames = new String[hosts];
+        for (int i = 0; i < hosts; i++) {
+            hostnames[i] = Inventories.hostname(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        client.close();
+        jaxrsClient.close();
+    }
+
+    private String nextHost() {
+        next = next + 1 == hostnames.length ? 0 : next + 1;
+        return hostnames[next];
+    }
+
+    @Benchmark
+    public String buildUrl() {
+        return client.buildUrl("http", nextHost(), port, "/system/properties");
+    }
+
+    @Benchmark
+    public Builder newTarget() {
+        String url = client.buildUrl("http", nextHost(), port, "/system/properties");
+        return client.buildClientBuilder(
+            jaxrsClient.target(url).queryParam("keys", "os.name,user.name"));
+    }
+
+    @Benchmark
+    public Builder preparedTarget() {
+        return client.buildClientBuilder(client.target(nextHost(), port).webTarget);
+    }
+}
@@ -0,0 +1,109 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.openliberty.guides.common.PropertiesCodec;
+
+/**
+ * Encoding and decoding the system properties of one lookup as JSON, as
+ * JSON-B does on both sides, and in the binary form that the services now
+ * negotiate. Two properties is the os.name and user.name projection the
+ * inventory asks for, and around 60 is every property of a JVM. The body
+ * sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({ "2", "10", "60" })
+    int properties;
+
+    private Jsonb jsonb;
+    private Properties props;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        jsonb = JsonbBuilder.create();
+        props = new Properties();
+        props.setProperty("os.name", System.getProperty("os.name"));
+        props.setProperty("user.name", System.getProperty("user.name"));
+        List<String> names = new ArrayList<>(System.getProperties().stringPropertyNames());
+        Collections.sort(names);
+        for (int i = 0; props.size() < properties; i++) {
+            // Pads small JVMs with copies of their own properties
+            String name = names.get(i % names.size());
+            String key = i < names.size() ? name : name + "." + i;
+            props.setProperty(key, System.getProperty(name));
+        }
+        json = jsonb.toJson(props).getBytes(StandardCharsets.UTF_8);
+        binary = PropertiesCodec.encode(props);
+        System.out.printf("%n%d properties: JSON %d bytes, binary %d bytes%n",
+                          props.size(), json.length, binary.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        jsonb.close();
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return jsonb.toJson(props).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return PropertiesCodec.encode(props);
+    }
+
+    @Benchmark
+    public Properties decodeJson() {
+        return jsonb.fromJson(new ByteArrayInputStream(json), Properties.class);
+    }
+
+    @Benchmark
+    public Properties decodeBinary() throws IOException {
+        return PropertiesCodec.decode(new ByteArrayInputStream(binary));
+    }
+}
@@ -0,0 +1,94 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.load;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObjectBuilder;
+
+/**
+ * Latencies and errors of one operation, recorded by a single worker and
+ * merged after the stage. Every latency is kept, so the percentiles are
+ * exact.
+ */
+class LatencySamples {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    void record(long nanos, boolean success) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    void addAll(LatencySamples other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies,
+                Math.max(count + other.count, latencies.length * 2));
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /**
+     * Returns the requests, errors and latency percentiles in milliseconds,
+     * sorting the latencies recorded so far.
+     */
+    JsonObjectBuilder toJson(double seconds) {
+        Arrays.sort(latencies, 0, count);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += latencies[i];
+        }
+        return Json.createObjectBuilder()
+            .add("requests", count)
+            .add("throughput", count / seconds)
+            .add("errors", errors)
+            .add("errorRate", count == 0 ? 0 : (double) errors / count)
+            .add("latencyMillis", Json.createObjectBuilder()
+                .add("mean", count == 0 ? 0 : millis(total / count))
+                .add("p50", millis(percentile(0.5)))
+                .add("p99", millis(percentile(0.99)))
+                .add("p999", millis(percentile(0.999)))
+                .add("max", millis(percentile(1.0))));
+    }
+
+    // Nearest-rank percentile of the sorted latencies
+    long percentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * count);
+        return latencies[Math.max(rank, 1) - 1];
+    }
+
+    static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
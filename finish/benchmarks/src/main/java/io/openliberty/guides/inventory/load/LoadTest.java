@@ -0,0 +1,366 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.load;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonWriter;
+import jakarta.json.stream.JsonGenerator;
+
+/**
+ * Drives a running inventory service with a mix of operations on many
+ * simulated hosts, and writes the throughput, latency percentiles and
+ * error rate of each stage as JSON. A stage runs a fixed number of
+ * closed-loop workers for a fixed time, so a ramp of stages shows where
+ * throughput stops growing with concurrency.
+ *
+ * The hosts are the loopback addresses 127.0.0.1, 127.0.0.2 and so on,
+ * which all reach the system service port on Linux. With stub=port, a
+ * {@link StubSystemService} answers on that port in place of the system
+ * service, with different properties for each host.
+ *
+ * Options are given as name=value arguments:
+ * <pre>
+ * url              inventory base URL, default http://localhost:9081/inventory
+ * hosts            simulated hosts, default 1000
+ * mix              operation weights, default lookup=60,list=20,register=10,remove=10
+ * ramp             workers of each stage, default 1,4,16,64
+ * duration         seconds of each stage, default 30
+ * warmup           seconds run before the first stage, not reported, default 10
+ * preload          register every host first, default true
+ * batch            hosts in each register request, default 10
+ * timeout          seconds to wait for each response, default 10
+ * stub             port to run the stub system service on, default none
+ * stubDelay        milliseconds the stub takes to answer, default 0
+ * stubErrorRate    fraction of stub answers that are 500, default 0
+ * out              result file, default standard output
+ * </pre>
+ */
+public final class LoadTest {
+
+    enum Operation {
+        // GET /systems/{hostname}, which registers unknown hosts
+        LOOKUP,
+        // GET /systems?limit=100
+        LIST,
+        // POST /systems/batch
+        REGISTER,
+        // DELETE /systems/{hostname}, which is not found when already removed
+        REMOVE;
+
+        boolean succeeded(int status) {
+            return status == 200 || (this == REMOVE && status == 404);
+        }
+
+        String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final URI url;
+    private final int hosts;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+    private final int batch;
+    private final Duration timeout;
+    private final HttpClient client;
+
+    LoadTest(URI url, int hosts, Map<Operation, Integer> mix, int batch, Duration timeout) {
+        this.url = url;
+        this.hosts = hosts;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.batch = batch;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                                .version(HttpClient.Version.HTTP_1_1)
+                                .connectTimeout(timeout)
+                                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI url = URI.create(options.getOrDefault("url", "http://localhost:9081/inventory"));
+        int hosts = Integer.parseInt(options.getOrDefault("hosts", "1000"));
+        if (hosts < 1 || hosts >= 1 << 24) {
+            throw new IllegalArgumentException("hosts must be between 1 and 16777215");
+        }
+        Map<Operation, Integer> mix =
+            parseMix(options.getOrDefault("mix", "lookup=60,list=20,register=10,remove=10"));
+        List<Integer> ramp = new ArrayList<>();
+        for (String workers : options.getOrDefault("ramp", "1,4,16,64").split(",")) {
+            ramp.add(Integer.parseInt(workers.trim()));
+        }
+        long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "10"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "10"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "10")));
+
+        LoadTest test = new LoadTest(url, hosts, mix, batch, timeout);
+        try (StubSystemService stub = options.containsKey("stub")
+                ? new StubSystemService(Integer.parseInt(options.get("stub")),
+                      Long.parseLong(options.getOrDefault("stubDelay", "0")),
+                      Double.parseDouble(options.getOrDefault("stubErrorRate", "0")))
+                : null) {
+            if (Boolean.parseBoolean(options.getOrDefault("preload", "true"))) {
+                test.preload();
+            }
+            if (warmup > 0) {
+                test.runStage(ramp.get(0), warmup);
+            }
+            JsonArrayBuilder stages = Json.createArrayBuilder();
+            for (int workers : ramp) {
+                JsonObject stage = test.runStage(workers, duration);
+                stages.add(stage);
+                System.err.println(summary(stage));
+            }
+            JsonObject result = Json.createObjectBuilder()
+                .add("url", url.toString())
+                .add("hosts", hosts)
+                .add("mix", mixJson(mix))
+                .add("stageSeconds", duration)
+                .add("stages", stages)
+                .build();
+            write(result, options.get("out"));
+        }
+    }
+
+    /**
+     * Registers every host through batch requests, so that the stages
+     * start from a full inventory.
+     */
+    void preload() throws IOException, InterruptedException {
+        int chunk = 1000;
+        for (int first = 0; first < hosts; first += chunk) {
+            StringJoiner hostnames = new StringJoiner("\",\"", "[\"", "\"]");
+            for (int i = first; i < Math.min(first + chunk, hosts); i++) {
+                hostnames.add(hostname(i));
+            }
+            HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(url.resolve(url.getPath() + "/systems/batch"))
+                           .header("Content-Type", "application/json")
+                           .POST(BodyPublishers.ofString(hostnames.toString()))
+                           .build(),
+                BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IOException("Preloading the hosts failed with status "
+                    + response.statusCode());
+            }
+        }
+    }
+
+    /**
+     * Runs workers in a closed loop for the given time.
+     * @return the results of the stage, overall and for each operation.
+     */
+    JsonObject runStage(int workers, long seconds) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        List<Worker> running = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            Worker worker = new Worker(deadline);
+            worker.setName("load-worker-" + i);
+            worker.start();
+            running.add(worker);
+        }
+        Map<Operation, LatencySamples> byOperation = new EnumMap<>(Operation.class);
+        LatencySamples all = new LatencySamples();
+        for (Worker worker : running) {
+            worker.join();
+            for (Operation operation : Operation.values()) {
+                byOperation.computeIfAbsent(operation, o -> new LatencySamples())
+                           .addAll(worker.samples.get(operation));
+                all.addAll(worker.samples.get(operation));
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+
+        JsonObjectBuilder operations = Json.createObjectBuilder();
+        for (Operation operation : mix.keySet()) {
+            operations.add(operation.key(), byOperation.get(operation).toJson(elapsed));
+        }
+        return Json.createObjectBuilder()
+                   .add("workers", workers)
+                   .add("seconds", elapsed)
+                   .addAll(all.toJson(elapsed))
+                   .add("operations", operations)
+                   .build();
+    }
+
+    private class Worker extends Thread {
+
+        private final long deadline;
+        private final Map<Operation, LatencySamples> samples = new EnumMap<>(Operation.class);
+
+        Worker(long deadline) {
+            this.deadline = deadline;
+            for (Operation operation : Operation.values()) {
+                samples.put(operation, new LatencySamples());
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                Operation operation = pick(random.nextInt(totalWeight));
+                HttpRequest request = request(operation, random);
+                long start = System.nanoTime();
+                boolean succeeded;
+                try {
+                    HttpResponse<Void> response = client.send(request, BodyHandlers.discarding());
+                    succeeded = operation.succeeded(response.statusCode());
+                } catch (IOException e) {
+                    succeeded = false;
+                } catch (InterruptedException e) {
+                    return;
+                }
+                samples.get(operation).record(System.nanoTime() - start, succeeded);
+            }
+        }
+    }
+
+    private Operation pick(int weight) {
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            weight -= entry.getValue();
+            if (weight < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private HttpRequest request(Operation operation, ThreadLocalRandom random) {
+        String systems = url.getPath() + "/systems";
+        switch (operation) {
+            case LOOKUP:
+                return requestTo(systems + "/" + hostname(random.nextInt(hosts))).build();
+            case LIST:
+                return requestTo(systems + "?limit=100").build();
+            case REGISTER:
+                StringJoiner hostnames = new StringJoiner("\",\"", "[\"", "\"]");
+                for (int i = 0; i < batch; i++) {
+                    hostnames.add(hostname(random.nextInt(hosts)));
+                }
+                return requestTo(systems + "/batch")
+                    .header("Content-Type", "application/json")
+                    .POST(BodyPublishers.ofString(hostnames.toString()))
+                    .build();
+            default:
+                return requestTo(systems + "/" + hostname(random.nextInt(hosts))).DELETE().build();
+        }
+    }
+
+    private HttpRequest.Builder requestTo(String path) {
+        return HttpRequest.newBuilder(url.resolve(path)).timeout(timeout);
+    }
+
+    /**
+     * Returns the loopback address of the host with the given index.
+     */
+    static String hostname(int index) {
+        int n = index + 1;
+        return "127." + (n >>> 16 & 0xff) + "." + (n >>> 8 & 0xff) + "." + (n & 0xff);
+    }
+
+    /**
+     * Returns the index of the host with the given loopback address, or 0
+     * for any other address.
+     */
+    static int hostIndex(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        if (bytes.length != 4 || bytes[0] != 127) {
+            return 0;
+        }
+        return ((bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | (bytes[3] & 0xff)) - 1;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            int equals = args[i].indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Expected option=value, got " + args[i]);
+            }
+            options.put(args[i].substring(0, equals), args[i].substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String weight : mix.split(",")) {
+            String[] pair = weight.split("=");
+            int value = Integer.parseInt(pair[1].trim());
+            if (value > 0) {
+                weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), value);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("mix needs at least one positive weight");
+        }
+        return weights;
+    }
+
+    private static JsonObjectBuilder mixJson(Map<Operation, Integer> mix) {
+        JsonObjectBuilder json = Json.createObjectBuilder();
+        mix.forEach((operation, weight) -> json.add(operation.key(), weight));
+        return json;
+    }
+
+    private static String summary(JsonObject stage) {
+        JsonObject latency = stage.getJsonObject("latencyMillis");
+        return String.format("%d workers: %.1f req/s, p50 %.2f ms, p99 %.2f ms,"
+            + " p999 %.2f ms, errors %.2f%%",
+            stage.getInt("workers"), stage.getJsonNumber("throughput").doubleValue(),
+            latency.getJsonNumber("p50").doubleValue(),
+            latency.getJsonNumber("p99").doubleValue(),
+            latency.getJsonNumber("p999").doubleValue(),
+            stage.getJsonNumber("errorRate").doubleValue() * 100);
+    }
+
+    private static void write(JsonObject result, String file) throws IOException {
+        StringWriter json = new StringWriter();
+        try (JsonWriter writer = Json.createWriterFactory(
+                 Map.of(JsonGenerator.PRETTY_PRINTING, true)).createWriter(json)) {
+            writer.write(result);
+        }
+        if (file == null) {
+            System.out.println(json);
+        } else {
+            Files.writeString(Paths.get(file), json.toString());
+        }
+    }
+}
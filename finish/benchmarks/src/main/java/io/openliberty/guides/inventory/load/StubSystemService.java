@@ -0,0 +1,99 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.load;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stands in for the system service of every simulated host. It listens on
+ * all addresses, so each loopback address the inventory calls looks like
+ * a different host, and answers /system/properties with properties and
+ * an ETag derived from the address it was called on.
+ */
+public class StubSystemService implements AutoCloseable {
+
+    private static final String[] OS_NAMES = { "Linux", "Windows 11", "Mac OS X", "SunOS" };
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final long delayMillis;
+    private final double errorRate;
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * @param delayMillis
+     *          - time taken by each answer.
+     * @param errorRate
+     *          - fraction of the requests answered with 500.
+     */
+    public StubSystemService(int port, long delayMillis, double errorRate)
+            throws IOException {
+        this.delayMillis = delayMillis;
+        this.errorRate = errorRate;
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/system/properties", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        int host = LoadTest.hostIndex(exchange.getLocalAddress().getAddress());
+        String entityTag = "\"stub-" + host + "\"";
+        exchange.getResponseHeaders().add("ETag", entityTag);
+        if (entityTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] properties = ("{\"os.name\":\"" + OS_NAMES[host % OS_NAMES.length]
+            + "\",\"user.name\":\"user" + host + "\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, properties.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(properties);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
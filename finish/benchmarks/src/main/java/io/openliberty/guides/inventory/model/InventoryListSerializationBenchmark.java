@@ -0,0 +1,74 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.openliberty.guides.inventory.Inventories;
+
+/**
+ * JSON-B serialization of the GET /inventory/systems response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryListSerializationBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    int hosts;
+
+    private Jsonb jsonb;
+    private InventoryList inventory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        jsonb = JsonbBuilder.create();
+        List<SystemData> systems = new ArrayList<>(hosts);
+        for (int i = 0; i < hosts; i++) {
+            systems.add(new SystemData(Inventories.hostname(i),
+                Inventories.properties(i % 2 == 0 ? "Linux" : "Mac OS X", "user" + i)));
+        }
+        inventory = new InventoryList(systems, 1L);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        jsonb.close();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return jsonb.toJson(inventory);
+    }
+}
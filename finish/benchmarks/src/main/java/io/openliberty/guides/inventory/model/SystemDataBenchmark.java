@@ -0,0 +1,91 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.openliberty.guides.inventory.Inventories;
+
+/**
+ * Cost of finding whether a host is already known: the equals() scan of a
+ * list that the inventory used to do, against the hostname-keyed map it
+ * uses now and a hash set of records. The host looked up is the last one added, the worst case for
+ * the scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemDataBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    int hosts;
+
+    private final List<SystemData> list = new ArrayList<>();
+    private final ConcurrentSkipListMap<String, SystemData> map =
+        new ConcurrentSkipListMap<>();
+    private final Set<SystemData> set = new HashSet<>();
+    private SystemData candidate;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Properties props = Inventories.properties("Linux", "alice");
+        for (int i = 0; i < hosts; i++) {
+            SystemData system = new SystemData(Inventories.hostname(i), props);
+            list.add(system);
+            map.put(system.getHostname(), system);
+            set.add(system);
+        }
+        candidate = new SystemData(Inventories.hostname(hosts - 1), props);
+    }
+
+    @Benchmark
+    public boolean equalsScan() {
+        return list.contains(candidate);
+    }
+
+    @Benchmark
+    public boolean hostnameLookup() {
+        return map.containsKey(candidate.getHostname());
+    }
+
+    @Benchmark
+    public boolean hashSetLookup() {
+        return set.contains(candidate);
+    }
+
+    @Benchmark
+    public boolean equalsSelf() {
+        return candidate.equals(list.get(hosts - 1));
+    }
+}
@@ -0,0 +1,68 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Compares the retained heap of one million inventory records held as
+ * SystemData against the same records held as a hostname and a Properties
+ * table, the way the inventory used to keep them. Run with
+ * java -cp target/benchmarks.jar
+ * io.openliberty.guides.inventory.model.SystemDataFootprint [hosts]
+ */
+public final class SystemDataFootprint {
+
+    private static final String[] OS_NAMES = { "Linux", "Mac OS X", "Windows 11" };
+    private static final int USERS = 100;
+
+    private SystemDataFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int hosts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        List<Object> legacy = new ArrayList<>(hosts);
+        List<Object> compact = new ArrayList<>(hosts);
+        for (int i = 0; i < hosts; i++) {
+            // New strings for every host, as they arrive from the system services
+            String hostname = "host" + i + ".example.com";
+            String osName = new String(OS_NAMES[i % OS_NAMES.length]);
+            String userName = "user" + (i % USERS);
+            legacy.add(new PropertiesRecord(hostname, osName, userName));
+            compact.add(new SystemData(hostname, new String(osName), new String(userName)));
+        }
+
+        long legacyBytes = GraphLayout.parseInstance(legacy).totalSize();
+        long compactBytes = GraphLayout.parseInstance(compact).totalSize();
+        System.out.printf("%d hosts: Properties %,d bytes (%d per host),"
+            + " SystemData %,d bytes (%d per host), %.1fx smaller%n",
+            hosts, legacyBytes, legacyBytes / hosts, compactBytes,
+            compactBytes / hosts, (double) legacyBytes / compactBytes);
+    }
+
+    private static final class PropertiesRecord {
+
+        private final String hostname;
+        private final Properties properties = new Properties();
+
+        PropertiesRecord(String hostname, String osName, String userName) {
+            this.hostname = hostname;
+            properties.setProperty("os.name", osName);
+            properties.setProperty("user.name", userName);
+        }
+    }
+}
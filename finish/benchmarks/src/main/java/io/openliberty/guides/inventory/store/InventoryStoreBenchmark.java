@@ -0,0 +1,103 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.openliberty.guides.inventory.Inventories;
+import io.openliberty.guides.inventory.model.SystemData;
+
+/**
+ * Operations of the heap and off-heap inventory stores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InventoryStoreBenchmark {
+
+    @Param({ "100000", "1000000" })
+    int hosts;
+
+    @Param({ "heap", "offheap" })
+    String store;
+
+    private InventoryStore systems;
+    private SystemData[] records;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        systems = "offheap".equals(store) ? new OffHeapInventoryStore()
+                                          : new HeapInventoryStore();
+        records = new SystemData[hosts];
+        for (int i = 0; i < hosts; i++) {
+            records[i] = new SystemData(Inventories.hostname(i), "Linux", "user" + (i % 100));
+            systems.put(records[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        systems.close();
+    }
+
+    private SystemData nextRecord() {
+        next = next + 1 == hosts ? 0 : next + 1;
+        return records[next];
+    }
+
+    @Benchmark
+    public boolean put() {
+        return systems.put(nextRecord());
+    }
+
+    @Benchmark
+    public SystemData get() {
+        return systems.get(nextRecord().getHostname());
+    }
+
+    @Benchmark
+    public List<SystemData> page() {
+        return systems.page(nextRecord().getHostname(), 100);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public void iterate(Blackhole blackhole) {
+        Iterator<SystemData> iterator = systems.iterator();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import io.openliberty.guides.inventory.Inventories;
+import io.openliberty.guides.inventory.model.SystemData;
+
+/**
+ * Fills each inventory store with the same hosts and reports the heap they
+ * retain, the time spent in full collections with the inventory loaded,
+ * and put and get throughput. Run in a fresh JVM per store with
+ * java -Xmx4g -cp target/benchmarks.jar
+ * io.openliberty.guides.inventory.store.InventoryStoreFootprint heap|offheap [hosts]
+ */
+public final class InventoryStoreFootprint {
+
+    private static final int COLLECTIONS = 5;
+
+    private InventoryStoreFootprint() {
+    }
+
+    public static void main(String[] args) {
+        String type = args.length > 0 ? args[0] : "heap";
+        int hosts = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        long baseline = usedHeapAfterGc();
+
+        InventoryStore store = "offheap".equals(type) ? new OffHeapInventoryStore()
+                                                      : new HeapInventoryStore();
+        long start = System.nanoTime();
+        for (int i = 0; i < hosts; i++) {
+            store.put(new SystemData(Inventories.hostname(i), "Linux", "user" + (i % 100)));
+        }
+        double putsPerSecond = hosts / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < hosts; i++) {
+            if (store.get(Inventories.hostname(i)) != null) {
+                found++;
+            }
+        }
+        double getsPerSecond = found / ((System.nanoTime() - start) / 1e9);
+
+        long heap = Math.max(0, usedHeapAfterGc() - baseline);
+        long gcMillis = gcMillis();
+        for (int i = 0; i < COLLECTIONS; i++) {
+            System.gc();
+        }
+        double pauseMillis = (double) (gcMillis() - gcMillis) / COLLECTIONS;
+        long direct = store instanceof OffHeapInventoryStore
+            ? ((OffHeapInventoryStore) store).reservedBytes() : 0;
+
+        System.out.printf("%s store, %d hosts: heap %,d bytes, direct %,d bytes,"
+            + " full GC %.1f ms, %,.0f puts/s, %,.0f gets/s%n", type, store.size(),
+            heap, direct, pauseMillis, putsPerSecond, getsPerSecond);
+        store.close();
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
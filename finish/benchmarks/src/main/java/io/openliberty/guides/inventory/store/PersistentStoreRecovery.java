@@ -0,0 +1,94 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import io.openliberty.guides.inventory.Inventories;
+import io.openliberty.guides.inventory.model.SystemData;
+
+/**
+ * Writes hosts to a persistent store from concurrent writers, then times
+ * a restart from the log alone and from a snapshot. Run with
+ * java -cp target/benchmarks.jar
+ * io.openliberty.guides.inventory.store.PersistentStoreRecovery [hosts] [writers] [heap|offheap]
+ */
+public final class PersistentStoreRecovery {
+
+    private PersistentStoreRecovery() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int hosts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        String type = args.length > 2 ? args[2] : "heap";
+        Path directory = Files.createTempDirectory("inventory");
+        try {
+            PersistentInventoryStore store = open(directory, type);
+            long start = System.nanoTime();
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            List<Future<?>> results = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int first = w;
+                results.add(executor.submit(() -> {
+                    for (int i = first; i < hosts; i += writers) {
+                        store.put(new SystemData(Inventories.hostname(i), "Linux",
+                                                 "user" + (i % 100)));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            executor.shutdown();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            store.close();
+            System.out.printf("%d durable puts from %d writers: %.1f s, %,.0f puts/s%n",
+                hosts, writers, seconds, hosts / seconds);
+
+            start = System.nanoTime();
+            PersistentInventoryStore fromLog = open(directory, type);
+            System.out.printf("Restart from the log: %d hosts in %d ms%n",
+                fromLog.size(), (System.nanoTime() - start) / 1_000_000);
+            start = System.nanoTime();
+            fromLog.snapshot();
+            System.out.printf("Snapshot: %d ms, %,d bytes%n",
+                (System.nanoTime() - start) / 1_000_000,
+                Files.size(directory.resolve(PersistentInventoryStore.SNAPSHOT)));
+            fromLog.close();
+
+            start = System.nanoTime();
+            PersistentInventoryStore fromSnapshot = open(directory, type);
+            System.out.printf("Restart from the snapshot: %d hosts in %d ms%n",
+                fromSnapshot.size(), (System.nanoTime() - start) / 1_000_000);
+            fromSnapshot.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    private static PersistentInventoryStore open(Path directory, String type) throws Exception {
+        InventoryStore systems = "offheap".equals(type) ? new OffHeapInventoryStore()
+                                                        : new HeapInventoryStore();
+        return new PersistentInventoryStore(directory, systems, Long.MAX_VALUE, Runnable::run);
+    }
+}
@@ -0,0 +1,147 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.telemetry;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.internal.DefaultConfigProperties;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Tracing overhead of one GET /inventory/systems/{hostname} request at
+ * several sampling ratios, with and without keeping failed and slow
+ * traces. A request has the spans the inventory creates: the server span,
+ * GettingProperties, FetchingProperties and the add span. Spans go through
+ * the batch processor to an exporter that discards them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SamplingBenchmark {
+
+    private static final AttributeKey<String> HOSTNAME = AttributeKey.stringKey("hostname");
+
+    @Param({ "0", "0.01", "0.1", "1" })
+    public String ratio;
+
+    @Param({ "false", "true" })
+    public boolean keepErrorsAndSlow;
+
+    private SdkTracerProvider tracerProvider;
+    private Tracer tracer;
+    private final DiscardingExporter exporter = new DiscardingExporter();
+
+    @Setup
+    public void setup() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("otel.traces.sampler", InventorySamplerProvider.NAME);
+        properties.put("otel.traces.sampler.arg", ratio);
+        properties.put(InventorySamplerProvider.KEEP_ERRORS,
+                       Boolean.toString(keepErrorsAndSlow));
+        properties.put(InventorySamplerProvider.SLOW_THRESHOLD,
+                       keepErrorsAndSlow ? "1s" : "0s");
+        ConfigProperties config = DefaultConfigProperties.createFromMap(properties);
+        tracerProvider = SdkTracerProvider.builder()
+            .setSampler(new InventorySamplerProvider().createSampler(config))
+            .addSpanProcessor(TailSamplingCustomizer.customize(
+                BatchSpanProcessor.builder(exporter).build(), config))
+            .build();
+        tracer = tracerProvider.get("inventory");
+    }
+
+    @TearDown
+    public void teardown() {
+        tracerProvider.close();
+    }
+
+    @Benchmark
+    public void request() {
+        Span server = tracer.spanBuilder("GET /inventory/systems/{hostname}")
+                            .setSpanKind(SpanKind.SERVER)
+                            .setAttribute("http.request.method", "GET")
+                            .setAttribute("url.path", "/inventory/systems/host42")
+                            .startSpan();
+        try (io.opentelemetry.context.Scope scope = server.makeCurrent()) {
+            Span getting = tracer.spanBuilder("GettingProperties").startSpan();
+            try (io.opentelemetry.context.Scope inner = getting.makeCurrent()) {
+                Span fetching = tracer.spanBuilder("FetchingProperties")
+                                      .setAttribute(HOSTNAME, "host42")
+                                      .startSpan();
+                try (io.opentelemetry.context.Scope fetch = fetching.makeCurrent()) {
+                    Span add = tracer.spanBuilder("Inventory Manager Add")
+                                     .setAttribute(HOSTNAME, "host42")
+                                     .startSpan();
+                    add.end();
+                }
+                fetching.setAttribute("callers", 1);
+                fetching.end();
+                getting.addEvent("Received properties", Attributes.empty());
+            }
+            getting.end();
+            server.setAttribute("http.response.status_code", 200);
+        }
+        server.end();
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+    }
+
+    private static class DiscardingExporter implements SpanExporter {
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> batch) {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
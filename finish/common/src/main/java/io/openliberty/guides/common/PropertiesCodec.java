@@ -0,0 +1,102 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The compact form of the system properties that the system service offers
+ * next to JSON and the inventory service reads. The body is the number of
+ * properties followed by the name and value of each, every string as its
+ * length in UTF-8 bytes and the bytes. The count and lengths are unsigned
+ * varints, so a short string costs one byte more than its text and nothing
+ * is parsed by reflection. Both services use this class, so the writer and
+ * the reader cannot drift apart.
+ */
+public final class PropertiesCodec {
+
+    public static final String MEDIA_TYPE = "application/x-system-properties";
+
+    // Bounds what a corrupt or hostile body can make the reader allocate
+    private static final int MAX_LENGTH = 1 << 20;
+
+    private PropertiesCodec() {
+    }
+
+    public static byte[] encode(Map<?, ?> properties) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * properties.size() + 1);
+        writeVarint(out, properties.size());
+        for (Map.Entry<?, ?> property : properties.entrySet()) {
+            writeString(out, property.getKey().toString());
+            writeString(out, property.getValue().toString());
+        }
+        return out.toByteArray();
+    }
+
+    public static Properties decode(InputStream in) throws IOException {
+        int count = readVarint(in);
+        // Sized up front, as the count is known, so the table never grows
+        Properties properties = new Properties(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            properties.setProperty(name, readString(in));
+        }
+        return properties;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        int length = readVarint(in);
+        byte[] bytes = new byte[length];
+        if (in.readNBytes(bytes, 0, length) < length) {
+            throw new EOFException("Truncated system properties");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated system properties");
+            }
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0 || value > MAX_LENGTH) {
+                    throw new IOException("Invalid length " + value + " in system properties");
+                }
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint in system properties");
+    }
+}
@@ -0,0 +1,113 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+
+/**
+ * Logs an event that happens on every request without flooding the log.
+ * Every event is logged at FINE when that level is enabled. Otherwise at
+ * most perSecond events each second are logged at INFO, and each record
+ * tells how many events were left out before it. Records carry the ID of
+ * the request's trace, so a sampled record leads to the whole request.
+ * The system and inventory services both log their requests with it.
+ *
+ * Callers check {@link #sample()} before building the parameter, so an
+ * event that is not logged allocates nothing:
+ *
+ * <pre>
+ * Level level = responses.sample();
+ * if (level != null) {
+ *     responses.log(level, span, response.getStatus());
+ * }
+ * </pre>
+ */
+public final class SampledLogger {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger logger;
+    private final String fineMessage;
+    private final String infoMessage;
+    private final int perSecond;
+    private final LongSupplier nanoTime;
+
+    private final AtomicLong window = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger logged = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * @param message
+     *          - the message of the event, with its parameter as {0}.
+     * @param perSecond
+     *          - events logged at INFO each second, or 0 to only log at FINE.
+     */
+    public SampledLogger(Logger logger, String message, int perSecond) {
+        this(logger, message, perSecond, System::nanoTime);
+    }
+
+    SampledLogger(Logger logger, String message, int perSecond, LongSupplier nanoTime) {
+        this.logger = logger;
+        this.fineMessage = message + " [trace {1}]";
+        this.infoMessage = message + " [trace {1}, {2} similar events not logged]";
+        this.perSecond = perSecond;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Decides whether the current event is logged.
+     * @return the level to log the event at, or null to leave it out.
+     */
+    public Level sample() {
+        if (logger.isLoggable(Level.FINE)) {
+            return Level.FINE;
+        }
+        if (perSecond <= 0 || !logger.isLoggable(Level.INFO)) {
+            return null;
+        }
+        long second = Math.floorDiv(nanoTime.getAsLong(), SECOND);
+        long current = window.get();
+        if (current != second && window.compareAndSet(current, second)) {
+            logged.set(0);
+        }
+        if (logged.getAndIncrement() < perSecond) {
+            return Level.INFO;
+        }
+        suppressed.increment();
+        return null;
+    }
+
+    /**
+     * Logs an event that {@link #sample()} let through at level.
+     * @param span
+     *          - span of the request the event belongs to.
+     */
+    public void log(Level level, Span span, Object parameter) {
+        SpanContext spanContext = span.getSpanContext();
+        String traceId = spanContext.isValid() ? spanContext.getTraceId() : "none";
+        if (level == Level.FINE) {
+            logger.log(level, fineMessage, new Object[] { parameter, traceId });
+        } else {
+            logger.log(level, infoMessage,
+                new Object[] { parameter, traceId, suppressed.sumThenReset() });
+        }
+    }
+}
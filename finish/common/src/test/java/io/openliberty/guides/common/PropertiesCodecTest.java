@@ -0,0 +1,72 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+public class PropertiesCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("os.name", "Windows 11");
+        props.setProperty("user.name", "élève");
+        props.setProperty("long.value", "x".repeat(300));
+
+        assertEquals(props, decode(PropertiesCodec.encode(props)));
+        assertEquals(new Properties(), decode(PropertiesCodec.encode(Map.of())));
+    }
+
+    @Test
+    public void testLayout() {
+        Map<String, String> values = new TreeMap<>();
+        values.put("a", "é");
+        values.put("b", "x".repeat(130));
+        byte[] encoded = PropertiesCodec.encode(values);
+
+        // Count, then each string as its UTF-8 length and bytes
+        assertArrayEquals(new byte[] { 2, 1, 'a', 2, (byte) 0xc3, (byte) 0xa9, 1, 'b',
+            (byte) 0x82, 0x01 }, Arrays.copyOf(encoded, 10));
+        assertEquals(10 + 130, encoded.length);
+    }
+
+    @Test
+    public void testInvalidBodies() {
+        byte[] encoded = PropertiesCodec.encode(Map.of("os.name", "Linux"));
+        assertThrows(EOFException.class,
+            () -> decode(Arrays.copyOf(encoded, encoded.length - 1)),
+            "A truncated body should be rejected");
+        assertThrows(IOException.class,
+            () -> decode(new byte[] { (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x7f }),
+            "A length above the limit should be rejected");
+        assertThrows(IOException.class,
+            () -> decode(new byte[] { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+                (byte) 0x80, 0x01 }),
+            "A varint longer than an int should be rejected");
+    }
+
+    private Properties decode(byte[] body) throws IOException {
+        return PropertiesCodec.decode(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,119 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+
+public class SampledLoggerTest {
+
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final Span SPAN = Span.wrap(SpanContext.create(TRACE_ID,
+        "b7ad6b7169203331", TraceFlags.getSampled(), TraceState.getDefault()));
+
+    private final Logger logger = Logger.getLogger(SampledLoggerTest.class.getName());
+    private final List<LogRecord> records = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong();
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @BeforeEach
+    public void setup() {
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        logger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    public void teardown() {
+        logger.removeHandler(handler);
+        logger.setUseParentHandlers(true);
+        logger.setLevel(null);
+    }
+
+    @Test
+    public void testRateLimit() {
+        SampledLogger sampled = new SampledLogger(logger, "Status: {0}", 2, now::get);
+        for (int i = 0; i < 10; i++) {
+            event(sampled, i);
+        }
+        assertEquals(2, records.size());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        event(sampled, 10);
+        assertEquals(3, records.size());
+        LogRecord record = records.get(2);
+        assertEquals(Level.INFO, record.getLevel());
+        assertArrayEquals(new Object[] { 10, TRACE_ID, 8L }, record.getParameters(),
+            "The record should tell how many events were left out");
+    }
+
+    @Test
+    public void testFineLogsEveryEvent() {
+        logger.setLevel(Level.FINE);
+        SampledLogger sampled = new SampledLogger(logger, "Status: {0}", 2, now::get);
+        for (int i = 0; i < 10; i++) {
+            event(sampled, i);
+        }
+        assertEquals(10, records.size());
+        assertEquals(Level.FINE, records.get(9).getLevel());
+        assertArrayEquals(new Object[] { 9, TRACE_ID }, records.get(9).getParameters());
+    }
+
+    @Test
+    public void testDisabled() {
+        SampledLogger sampled = new SampledLogger(logger, "Status: {0}", 0, now::get);
+        assertNull(sampled.sample(), "Only FINE should be logged without a rate");
+
+        logger.setLevel(Level.WARNING);
+        sampled = new SampledLogger(logger, "Status: {0}", 2, now::get);
+        assertNull(sampled.sample());
+    }
+
+    private void event(SampledLogger sampled, int status) {
+        Level level = sampled.sample();
+        if (level != null) {
+            sampled.log(level, SPAN, status);
+        }
+    }
+}
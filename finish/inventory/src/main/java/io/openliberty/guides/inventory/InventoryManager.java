@@ -11,44 +11,188 @@
 // end::copyright[]
 package io.openliberty.guides.inventory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.metrics.LongCounter;
-import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
 import io.opentelemetry.instrumentation.annotations.SpanAttribute;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 
+import io.openliberty.guides.inventory.client.LookupExecutor;
 import io.openliberty.guides.inventory.client.SystemClient;
+import io.openliberty.guides.inventory.model.BatchReport;
 import io.openliberty.guides.inventory.model.InventoryList;
+import io.openliberty.guides.inventory.model.RegistrationResult;
 import io.openliberty.guides.inventory.model.SystemData;
+import io.openliberty.guides.inventory.store.HeapInventoryStore;
+import io.openliberty.guides.inventory.store.InventoryStore;
+import io.openliberty.guides.inventory.store.OffHeapInventoryStore;
+import io.openliberty.guides.inventory.store.OsFamilyCounts;
+import io.openliberty.guides.inventory.store.PersistentInventoryStore;
 
 @ApplicationScoped
 public class InventoryManager {
 
+    private static final Logger logger = Logger.getLogger(InventoryManager.class.getName());
+
+    // Attribute sets are built once, so recording a measurement does not
+    // allocate. Adds are split by whether the host was new and by OS family.
+    private static final AttributeKey<String> RESULT = AttributeKey.stringKey("result");
+    private static final AttributeKey<String> OS_FAMILY = AttributeKey.stringKey("os.family");
+    private static final AttributeKey<String> LIST_KIND = AttributeKey.stringKey("kind");
+
+    private static final int FAMILIES = OsFamilyCounts.FAMILIES.size();
+    private static final Attributes[][] ADD_ATTRIBUTES = new Attributes[2][FAMILIES];
+    private static final Attributes[] FAMILY_ATTRIBUTES = new Attributes[FAMILIES];
+    static {
+        for (int family = 0; family < FAMILIES; family++) {
+            String name = OsFamilyCounts.FAMILIES.get(family);
+            ADD_ATTRIBUTES[0][family] = Attributes.of(RESULT, "duplicate", OS_FAMILY, name);
+            ADD_ATTRIBUTES[1][family] = Attributes.of(RESULT, "new", OS_FAMILY, name);
+            FAMILY_ATTRIBUTES[family] = Attributes.of(OS_FAMILY, name);
+        }
+    }
+    private static final Attributes LIST_FULL = Attributes.of(LIST_KIND, "full");
+    private static final Attributes LIST_PAGE = Attributes.of(LIST_KIND, "page");
+    private static final Attributes LIST_STREAM = Attributes.of(LIST_KIND, "stream");
+
+    // Nanoseconds, from an in-memory add to a durable one
+    private static final List<Long> ADD_DURATION_BUCKETS = List.of(
+        250L, 500L, 1_000L, 2_500L, 5_000L, 10_000L, 25_000L, 50_000L, 100_000L,
+        250_000L, 500_000L, 1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L,
+        25_000_000L, 50_000_000L, 100_000_000L);
+
     @Inject
     @ConfigProperty(name = "system.http.port")
-    private int SYSTEM_PORT;
+    int SYSTEM_PORT;
+
+    @Inject
+    @ConfigProperty(name = "inventory.cache.ttl", defaultValue = "300")
+    long cacheTtl;
+
+    @Inject
+    @ConfigProperty(name = "inventory.cache.maxEntries", defaultValue = "10000")
+    long cacheMaxEntries;
+
+    @Inject
+    @ConfigProperty(name = "inventory.cache.staleWhileRevalidate", defaultValue = "false")
+    boolean cacheStaleWhileRevalidate;
+
+    @Inject
+    @ConfigProperty(name = "inventory.batch.parallelism", defaultValue = "16")
+    int batchParallelism;
+
+    @Inject
+    @ConfigProperty(name = "inventory.batch.hostTimeout", defaultValue = "5000")
+    long batchHostTimeout;
 
-    private List<SystemData> systems = Collections.synchronizedList(new ArrayList<>());
+    @Inject
+    @ConfigProperty(name = "inventory.store", defaultValue = "heap")
+    String storeType;
+
+    @Inject
+    @ConfigProperty(name = "inventory.store.dir")
+    Optional<String> storeDir;
+
+    @Inject
+    @ConfigProperty(name = "inventory.store.snapshotBytes", defaultValue = "67108864")
+    long storeSnapshotBytes;
+
+    @Inject
+    SystemClient systemClient;
+
+    @Inject
+    LookupExecutor lookupExecutor;
+
+    // The container proxy of this bean. Calls a bean makes to its own
+    // methods are not intercepted, so lookups call add() through the proxy
+    // for its @WithSpan span to be created.
+    @Inject
+    InventoryManager self;
+
+    private PropertiesCache propertiesCache;
+
+    private InventoryStore systems;
+
+    // Every change to the store bumps the version while holding the shared
+    // side of the lock, so writers do not block each other. Taking the
+    // exclusive side waits for the changes in progress, which makes a copy
+    // taken under it a point-in-time snapshot. Versions start at a random
+    // value so that they are not reused after a restart.
+    //
+    // Each change therefore updates two shared words, the lock state and
+    // the version, while the store itself is striped. This is kept on
+    // purpose: the lock state is contended by every writer anyway, a
+    // striped version could not be read as one value by list() and by the
+    // snapshot check without taking the lock, and storing a host with
+    // unchanged properties returns early without touching the version.
+    // testConcurrentAddScaling measures adds that all change the store.
+    private final StampedLock writers = new StampedLock();
+    private final AtomicLong version =
+        new AtomicLong(ThreadLocalRandom.current().nextLong(1L << 48));
+    private volatile Snapshot snapshot = new Snapshot(version.get(), List.of());
+
+    // Lookups in flight, by hostname
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
 
     @Inject
     Meter meter;
 
+    @Inject
+    Tracer tracer;
+
     private LongCounter listCounter;
-    private DoubleHistogram addHistogram;
+    private LongHistogram addHistogram;
 
     @PostConstruct
     public void init() {
+        if (self == null) {
+            // Created outside of CDI, where there are no interceptors
+            self = this;
+        }
+        systems = newStore();
+
         listCounter = meter.counterBuilder("inventory.list.count")
             .setDescription("Number of times the inventory list is requested")
             .setUnit("1")
@@ -57,31 +201,262 @@ public class InventoryManager {
         addHistogram = meter.histogramBuilder("inventory.add.duration")
             .setDescription("Time taken to add a system to the inventory")
             .setUnit("ns")
+            .ofLongs()
+            .setExplicitBucketBoundariesAdvice(ADD_DURATION_BUCKETS)
             .build();
 
         meter.gaugeBuilder("inventory.size")
             .setDescription("Number of systems in the inventory")
             .setUnit("1")
             .buildWithCallback(g -> g.record((double) systems.size()));
+
+        meter.gaugeBuilder("inventory.hosts")
+            .setDescription("Number of systems in the inventory by OS family")
+            .setUnit("1")
+            .ofLongs()
+            .buildWithCallback(g -> {
+                OsFamilyCounts counts = systems.osFamilyCounts();
+                for (int family = 0; family < FAMILIES; family++) {
+                    g.record(counts.count(family), FAMILY_ATTRIBUTES[family]);
+                }
+            });
+
+        // Loads use the non-blocking client directly, so the executor only
+        // runs cache maintenance
+        propertiesCache = new PropertiesCache(meter, Duration.ofSeconds(cacheTtl),
+            cacheMaxEntries, cacheStaleWhileRevalidate,
+            lookupExecutor.getExecutorService(),
+            hostname -> systemClient.getPropertiesAsync(hostname, SYSTEM_PORT)
+                                    .toCompletableFuture());
+    }
+
+    // The off-heap store keeps millions of hosts without growing the heap
+    private InventoryStore newStore() {
+        InventoryStore store;
+        if ("offheap".equals(storeType)) {
+            store = new OffHeapInventoryStore();
+        } else {
+            if (!"heap".equals(storeType)) {
+                logger.log(Level.WARNING, "Unknown inventory.store {0},"
+                    + " keeping the inventory on the heap", storeType);
+            }
+            store = new HeapInventoryStore();
+        }
+        if (storeDir.isEmpty()) {
+            return store;
+        }
+        try {
+            return new PersistentInventoryStore(Paths.get(storeDir.get()), store,
+                storeSnapshotBytes, lookupExecutor.getExecutorService());
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                "Cannot recover the inventory from " + storeDir.get(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        systems.close();
     }
 
+    /**
+     * Looks up the properties of a host and waits for them, as
+     * {@link #getAsync} does.
+     * @return null if the properties cannot be fetched, including when the
+     *         lookup fails with an error.
+     */
     public Properties get(String hostname) {
-        try (SystemClient client = new SystemClient()) {
-            client.init(hostname, SYSTEM_PORT);
-            return client.getProperties();
+        try {
+            return getAsync(hostname).toCompletableFuture().join();
+        } catch (CompletionException e) {
+            logger.log(Level.FINE, "Cannot get the properties of " + hostname, e.getCause());
+            return null;
         }
     }
 
+    /**
+     * Looks up the properties of a host and adds it to the inventory. The
+     * callers that ask for the same host while a lookup is in flight share
+     * it, and its add, instead of starting their own. The lookup has its
+     * own FetchingProperties span, a child of the span current in the
+     * caller that started it, and the span current in every other caller
+     * links to it.
+     */
+    public CompletionStage<Properties> getAsync(String hostname) {
+        Flight[] started = new Flight[1];
+        Flight flight = inFlight.computeIfAbsent(hostname,
+            h -> started[0] = new Flight(tracer.spanBuilder("FetchingProperties")
+                                               .setAttribute("hostname", h)
+                                               .startSpan()));
+        if (flight != started[0]) {
+            flight.callers.incrementAndGet();
+            Span.current().addLink(flight.span.getSpanContext());
+            return flight.result.copy();
+        }
+        try (Scope scope = flight.span.makeCurrent()) {
+            propertiesCache.get(hostname).whenComplete((props, e) -> {
+                inFlight.remove(hostname, flight);
+                if (props != null) {
+                    self.add(hostname, props);
+                } else {
+                    flight.span.setStatus(StatusCode.ERROR, "Cannot get properties");
+                }
+                flight.span.setAttribute("callers", flight.callers.get());
+                flight.span.end();
+                if (e != null) {
+                    flight.result.completeExceptionally(e);
+                } else {
+                    flight.result.complete(props);
+                }
+            });
+        }
+        return flight.result.copy();
+    }
+
+    /**
+     * Fetches the properties of every host with at most
+     * inventory.batch.parallelism lookups in flight, each bounded by
+     * inventory.batch.hostTimeout milliseconds, then adds all the hosts that
+     * responded in one update. Each lookup gets its own span, parented to the
+     * span that is current when this method is called.
+     */
+    public CompletionStage<BatchReport> register(List<String> hostnames) {
+        Context parent = Context.current();
+        RegistrationResult[] results = new RegistrationResult[hostnames.size()];
+        Map<String, Properties> fetched = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.max(1, Math.min(batchParallelism, hostnames.size()));
+        CompletableFuture<?>[] running = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            running[i] = registerNext(hostnames, next, results, fetched, parent);
+        }
+        return CompletableFuture.allOf(running).thenApply(done -> {
+            addAll(fetched);
+            Span.fromContext(parent).addEvent("Added " + fetched.size() + " systems");
+            return new BatchReport(Arrays.asList(results));
+        });
+    }
+
+    private CompletableFuture<Void> registerNext(List<String> hostnames,
+            AtomicInteger next, RegistrationResult[] results,
+            Map<String, Properties> fetched, Context parent) {
+        int index = next.getAndIncrement();
+        if (index >= hostnames.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String hostname = hostnames.get(index);
+        Span span = tracer.spanBuilder("RegisteringHost")
+                          .setParent(parent)
+                          .setAttribute("hostname", hostname)
+                          .startSpan();
+        CompletableFuture<Properties> lookup;
+        try (Scope scope = span.makeCurrent()) {
+            // Copied so the timeout does not fail other callers of the cache
+            lookup = propertiesCache.get(hostname).copy()
+                                    .orTimeout(batchHostTimeout, TimeUnit.MILLISECONDS);
+        }
+        return lookup.handle((props, e) -> {
+            if (props != null) {
+                fetched.put(hostname, props);
+                results[index] = new RegistrationResult(hostname, true, null);
+            } else {
+                String error = e instanceof TimeoutException
+                    || (e != null && e.getCause() instanceof TimeoutException)
+                    ? "Timed out after " + batchHostTimeout + " ms"
+                    : "Unknown hostname or the system service may not be running";
+                span.addEvent("Cannot get properties");
+                span.setStatus(StatusCode.ERROR, error);
+                results[index] = new RegistrationResult(hostname, false, error);
+            }
+            span.end();
+            return null;
+        // Continues on the executor so long batches do not grow the stack
+        }).thenComposeAsync(
+            done -> registerNext(hostnames, next, results, fetched, parent),
+            lookupExecutor.getExecutorService());
+    }
+
     // tag::listWithSpan[]
     @WithSpan
     // end::listWithSpan[]
     // tag::listMethod[]
     public InventoryList list() {
-        listCounter.add(1);
-        return new InventoryList(systems);
+        listCounter.add(1, LIST_FULL);
+        Snapshot current = snapshot();
+        return new InventoryList(current.systems, current.version);
     }
     // end::listMethod[]
 
+    /**
+     * Returns an immutable copy of the inventory as of a single version.
+     * The copy is only taken when the inventory has changed since the last
+     * one, and writers are only held off while it is taken, never while it
+     * is serialized.
+     */
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current.version == version.get()) {
+            return current;
+        }
+        long stamp = writers.writeLock();
+        try {
+            current = snapshot;
+            if (current.version != version.get()) {
+                current = new Snapshot(version.get(), copyOf(systems.iterator()));
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            writers.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns up to limit systems in hostname order, starting after the
+     * host encoded in the continuation token. Only the page is copied.
+     * @param after
+     *          - the next token of the previous page, or null for the first page.
+     * @throws IllegalArgumentException if the token is not valid.
+     */
+    @WithSpan
+    public InventoryList list(int limit, String after) {
+        listCounter.add(1, LIST_PAGE);
+        long pageVersion = version.get();
+        // One more than the limit shows whether there is a following page
+        List<SystemData> page = systems.page(after == null ? null : decodeToken(after),
+                                             limit + 1);
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            String last = page.get(limit - 1).getHostname();
+            return new InventoryList(page, systems.size(), encodeToken(last), pageVersion);
+        }
+        return new InventoryList(page, systems.size(), null, pageVersion);
+    }
+
+    /**
+     * Returns the systems in hostname order, for streaming them without
+     * copying the inventory. Iteration is weakly consistent.
+     */
+    public Iterable<SystemData> stream() {
+        listCounter.add(1, LIST_STREAM);
+        return systems::iterator;
+    }
+
+    private static List<SystemData> copyOf(Iterator<SystemData> iterator) {
+        List<SystemData> copy = new ArrayList<>();
+        iterator.forEachRemaining(copy::add);
+        return Collections.unmodifiableList(copy);
+    }
+
+    private String encodeToken(String hostname) {
+        return Base64.getUrlEncoder().withoutPadding()
+                     .encodeToString(hostname.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decodeToken(String token) {
+        return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    }
+
     // tag::addWithSpan[]
     @WithSpan("Inventory Manager Add")
     // end::addWithSpan[]
@@ -90,24 +465,158 @@ public class InventoryManager {
     public void add(@SpanAttribute("hostname") String host, Properties systemProps) {
     // end::spanAttribute[]
         long start = System.nanoTime();
+        SystemData system = new SystemData(host, systemProps);
+        boolean added = false;
         try {
-            Properties props = new Properties();
-            props.setProperty("os.name", systemProps.getProperty("os.name"));
-            props.setProperty("user.name", systemProps.getProperty("user.name"));
-            SystemData system = new SystemData(host, props);
-            if (!systems.contains(system)) {
-                systems.add(system);
-            }
+            added = put(system);
         } finally {
             long duration = System.nanoTime() - start;
-            addHistogram.record((double) duration);
+            addHistogram.record(duration,
+                ADD_ATTRIBUTES[added ? 1 : 0][OsFamilyCounts.family(system.getOsName())]);
         }
     }
     // end::addMethod[]
 
+    // Stores every host as one change, so the batch advances the version once
+    void addAll(Map<String, Properties> systemProps) {
+        if (systemProps.isEmpty()) {
+            return;
+        }
+        List<SystemData> batch = new ArrayList<>(systemProps.size());
+        long stamp = writers.readLock();
+        try {
+            for (Map.Entry<String, Properties> entry : systemProps.entrySet()) {
+                SystemData system = new SystemData(entry.getKey(), entry.getValue());
+                if (!unchanged(system)) {
+                    batch.add(system);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            systems.putAll(batch);
+            version.incrementAndGet();
+        } finally {
+            writers.unlockRead(stamp);
+        }
+    }
+
+    // Inserts the host if it is absent, otherwise replaces its properties
+    // with the latest ones in a single atomic step. Storing a host again
+    // with the same properties is not a change, so lookups served from the
+    // cache keep the snapshot and its version.
+    private boolean put(SystemData system) {
+        long stamp = writers.readLock();
+        try {
+            if (unchanged(system)) {
+                return false;
+            }
+            boolean added = systems.put(system);
+            version.incrementAndGet();
+            return added;
+        } finally {
+            writers.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Updates a host with properties fetched in the background, unless it
+     * has been removed in the meantime.
+     * @return false if the host is no longer in the inventory.
+     */
+    boolean refresh(String hostname, Properties systemProps) {
+        SystemData system = new SystemData(hostname, systemProps);
+        boolean refreshed;
+        long stamp = writers.readLock();
+        try {
+            if (unchanged(system)) {
+                refreshed = true;
+            } else {
+                refreshed = systems.replace(system);
+                if (refreshed) {
+                    version.incrementAndGet();
+                }
+            }
+        } finally {
+            writers.unlockRead(stamp);
+        }
+        if (refreshed) {
+            propertiesCache.put(hostname, systemProps);
+        }
+        return refreshed;
+    }
+
+    // Called with the shared side of the lock held
+    private boolean unchanged(SystemData system) {
+        SystemData stored = systems.get(system.getHostname());
+        return stored != null
+            && Objects.equals(stored.getOsName(), system.getOsName())
+            && Objects.equals(stored.getUserName(), system.getUserName());
+    }
+
+    boolean remove(String hostname) {
+        boolean removed;
+        long stamp = writers.readLock();
+        try {
+            removed = systems.remove(hostname);
+            if (removed) {
+                version.incrementAndGet();
+            }
+        } finally {
+            writers.unlockRead(stamp);
+        }
+        propertiesCache.invalidate(hostname);
+        systemClient.forget(hostname, SYSTEM_PORT);
+        return removed;
+    }
+
+    /**
+     * Returns the hostnames in the inventory, in hostname order.
+     */
+    List<String> hostnames() {
+        List<SystemData> current = snapshot().systems;
+        List<String> hostnames = new ArrayList<>(current.size());
+        for (SystemData system : current) {
+            hostnames.add(system.getHostname());
+        }
+        return hostnames;
+    }
+
     int clear() {
-        int propertiesClearedCount = systems.size();
-        systems.clear();
+        int propertiesClearedCount = 0;
+        long stamp = writers.readLock();
+        try {
+            propertiesClearedCount = systems.clear();
+            if (propertiesClearedCount > 0) {
+                version.incrementAndGet();
+            }
+        } finally {
+            writers.unlockRead(stamp);
+        }
+        propertiesCache.invalidateAll();
+        systemClient.forgetAll();
         return propertiesClearedCount;
     }
+
+    private static class Flight {
+
+        private final Span span;
+        private final CompletableFuture<Properties> result = new CompletableFuture<>();
+        private final AtomicInteger callers = new AtomicInteger(1);
+
+        Flight(Span span) {
+            this.span = span;
+        }
+    }
+
+    private static class Snapshot {
+
+        private final long version;
+        private final List<SystemData> systems;
+
+        Snapshot(long version, List<SystemData> systems) {
+            this.version = version;
+            this.systems = systems;
+        }
+    }
 }
@@ -11,28 +11,56 @@
 // end::copyright[]
 package io.openliberty.guides.inventory;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.ResponseBuilder;
+import jakarta.ws.rs.core.StreamingOutput;
 
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
 
+import io.openliberty.guides.inventory.model.BatchReport;
 import io.openliberty.guides.inventory.model.InventoryList;
+import io.openliberty.guides.inventory.model.SystemData;
 
 @RequestScoped
 @Path("/systems")
 public class InventoryResource {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Jsonb JSONB = JsonbBuilder.create();
+
     // tag::manager[]
     @Inject
     private InventoryManager manager;
@@ -43,25 +71,40 @@ public class InventoryResource {
     private Tracer tracer;
     // end::tracer[]
 
+    /**
+     * Looks up the properties of a host without holding a worker thread
+     * while the system service responds. The span stays current, and is
+     * ended, on whichever thread completes the lookup. Concurrent requests
+     * for the same host share one lookup, which also adds the host.
+     */
     @GET
     @Path("/{hostname}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getPropertiesForHost(@PathParam("hostname") String hostname) {
+    public CompletionStage<Response> getPropertiesForHost(
+        @PathParam("hostname") String hostname) {
         // tag::getPropertiesSpan[]
         Span getPropertiesSpan = tracer.spanBuilder("GettingProperties").startSpan();
         // end::getPropertiesSpan[]
         // tag::try[]
-        Properties props = null;
+        CompletionStage<Properties> lookup;
+        Context context;
         // tag::scope[]
         try (Scope scope = getPropertiesSpan.makeCurrent()) {
         // end::scope[]
+            context = Context.current();
             // tag::getSystem[]
-            props = manager.get(hostname);
+            lookup = manager.getAsync(hostname);
             // end::getSystem[]
+        } catch (RuntimeException e) {
+            getPropertiesSpan.end();
+            throw e;
+        }
+        return lookup.thenApply(context.wrapFunction(props -> {
             if (props == null) {
                 // tag::addEvent1[]
                 getPropertiesSpan.addEvent("Cannot get properties");
                 // end::addEvent1[]
+                getPropertiesSpan.setStatus(StatusCode.ERROR, "Cannot get properties");
                 return Response.status(Response.Status.NOT_FOUND)
                          .entity("{ \"error\" : \"Unknown hostname or the system "
                                + "service may not be running on " + hostname + "\" }")
@@ -70,23 +113,123 @@ public class InventoryResource {
             // tag::addEvent2[]
             getPropertiesSpan.addEvent("Received properties");
             // end::addEvent2[]
-            manager.add(hostname, props);
+            return Response.ok(props).build();
         // tag::finally[]
-        } finally {
+        })).whenComplete((response, e) -> {
+            if (e != null) {
+                getPropertiesSpan.setStatus(StatusCode.ERROR, e.getMessage());
+            }
             // tag::end[]
             getPropertiesSpan.end();
             // end::end[]
-        }
+        });
         // end::finally[]
         // end::try[]
-        return Response.ok(props).build();
+    }
 
+    /**
+     * Registers many hosts at once. The hosts are fetched in parallel under
+     * one BatchRegistration span, and the response reports the outcome for
+     * each host.
+     */
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> registerHosts(List<String> hostnames) {
+        if (hostnames == null || hostnames.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{ \"error\" : \"A list of hostnames is required\" }")
+                        .build());
+        }
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(hostnames));
+        Span batchSpan = tracer.spanBuilder("BatchRegistration")
+                               .setAttribute("host.count", unique.size())
+                               .startSpan();
+        CompletionStage<BatchReport> report;
+        try (Scope scope = batchSpan.makeCurrent()) {
+            report = manager.register(unique);
+        } catch (RuntimeException e) {
+            batchSpan.end();
+            throw e;
+        }
+        return report.thenApply(r -> Response.ok(r).build())
+                     .whenComplete((response, e) -> batchSpan.end());
+    }
+
+    /**
+     * Lists the inventory. When limit or after is given, only one page of
+     * systems is returned, in hostname order, and its next token is passed
+     * as after to fetch the following page. The whole list is tagged with
+     * its version, so unchanged inventories are revalidated without a body.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response listContents(@QueryParam("limit") Integer limit,
+                                 @QueryParam("after") String after,
+                                 @jakarta.ws.rs.core.Context Request request) {
+        if (limit == null && after == null) {
+            InventoryList systems = manager.list();
+            EntityTag entityTag = new EntityTag(Long.toHexString(systems.getVersion()));
+            ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            return Response.ok(systems).tag(entityTag).build();
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return badRequest("The limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        try {
+            return Response.ok(manager.list(pageSize, after)).build();
+        } catch (IllegalArgumentException e) {
+            return badRequest("The after token is not valid");
+        }
     }
 
+    /**
+     * Streams the inventory as newline-delimited JSON, one system per line,
+     * without building the whole document in memory. Selected with an
+     * Accept: application/x-ndjson header.
+     */
     @GET
+    @Produces(APPLICATION_NDJSON + ";qs=0.5")
+    public StreamingOutput streamContents() {
+        Iterable<SystemData> systems = manager.stream();
+        return output -> {
+            Writer writer = new BufferedWriter(
+                new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            for (SystemData system : systems) {
+                writer.write(JSONB.toJson(system));
+                writer.write('\n');
+            }
+            writer.flush();
+        };
+    }
+
+    private Response badRequest(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                       .entity("{ \"error\" : \"" + message + "\" }")
+                       .build();
+    }
+
+    /**
+     * Removes one host from the inventory. Its cached properties are
+     * dropped, so a later lookup fetches them again.
+     */
+    @DELETE
+    @Path("/{hostname}")
     @Produces(MediaType.APPLICATION_JSON)
-    public InventoryList listContents() {
-        return manager.list();
+    public Response removeHost(@PathParam("hostname") String hostname) {
+        if (!manager.remove(hostname)) {
+            return Response.status(Response.Status.NOT_FOUND)
+                           .entity("{ \"error\" : \"" + hostname
+                                 + " is not in the inventory\" }")
+                           .build();
+        }
+        return Response.ok().build();
     }
 
     @DELETE
@@ -0,0 +1,124 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory;
+
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+
+/**
+ * Read-through cache of system properties keyed by hostname. Entries are
+ * bounded by count with W-TinyLFU eviction and expire after a TTL.
+ * Concurrent misses for the same host share one load. In
+ * stale-while-revalidate mode, an expired entry is still returned while
+ * a single background load refreshes it.
+ */
+public class PropertiesCache {
+
+    private final AsyncLoadingCache<String, Properties> cache;
+
+    public PropertiesCache(Meter meter, Duration ttl, long maxEntries,
+                           boolean staleWhileRevalidate, Executor executor,
+                           Function<String, CompletableFuture<Properties>> loader) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .executor(executor)
+            .recordStats(() -> new MeterStatsCounter(meter));
+        if (staleWhileRevalidate) {
+            builder.refreshAfterWrite(ttl);
+        } else {
+            builder.expireAfterWrite(ttl);
+        }
+        // A load that completes with null is not cached
+        this.cache = builder.buildAsync((hostname, ignored) -> loader.apply(hostname));
+    }
+
+    public CompletableFuture<Properties> get(String hostname) {
+        return cache.get(hostname);
+    }
+
+    /**
+     * Replaces the cached properties of a host with newer ones.
+     */
+    public void put(String hostname, Properties properties) {
+        cache.put(hostname, CompletableFuture.completedFuture(properties));
+    }
+
+    public void invalidate(String hostname) {
+        cache.synchronous().invalidate(hostname);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    private static class MeterStatsCounter implements StatsCounter {
+
+        private final LongCounter hits;
+        private final LongCounter misses;
+        private final LongCounter evictions;
+
+        MeterStatsCounter(Meter meter) {
+            hits = meter.counterBuilder("inventory.cache.hits")
+                .setDescription("Number of system properties lookups served from the cache")
+                .setUnit("1")
+                .build();
+            misses = meter.counterBuilder("inventory.cache.misses")
+                .setDescription("Number of system properties lookups not found in the cache")
+                .setUnit("1")
+                .build();
+            evictions = meter.counterBuilder("inventory.cache.evictions")
+                .setDescription("Number of cached system properties evicted")
+                .setUnit("1")
+                .build();
+        }
+
+        @Override
+        public void recordHits(int count) {
+            hits.add(count);
+        }
+
+        @Override
+        public void recordMisses(int count) {
+            misses.add(count);
+        }
+
+        @Override
+        public void recordLoadSuccess(long loadTime) {
+        }
+
+        @Override
+        public void recordLoadFailure(long loadTime) {
+        }
+
+        @Override
+        public void recordEviction(int weight, RemovalCause cause) {
+            evictions.add(1);
+        }
+
+        @Override
+        public CacheStats snapshot() {
+            return CacheStats.empty();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+import io.openliberty.guides.inventory.client.SystemClient;
+
+/**
+ * Keeps the properties of registered hosts fresh by fetching them again in
+ * the background. Cycles are spaced by inventory.refresh.interval with
+ * random jitter, so several inventory instances do not poll in step. Within
+ * a cycle at most inventory.refresh.concurrency lookups are in flight and
+ * they are started at no more than inventory.refresh.rate per second. A host
+ * that fails inventory.refresh.maxFailures cycles in a row is removed from
+ * the inventory. Each cycle is traced as its own root span.
+ */
+@ApplicationScoped
+public class RefreshScheduler {
+
+    private static final Logger logger = Logger.getLogger(RefreshScheduler.class.getName());
+
+    private static final AttributeKey<String> HOSTNAME = AttributeKey.stringKey("hostname");
+
+    @Resource(lookup = "java:comp/DefaultManagedScheduledExecutorService")
+    ScheduledExecutorService scheduler;
+
+    @Inject
+    @ConfigProperty(name = "system.http.port")
+    int systemPort;
+
+    @Inject
+    @ConfigProperty(name = "inventory.refresh.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "inventory.refresh.interval", defaultValue = "60000")
+    long interval;
+
+    @Inject
+    @ConfigProperty(name = "inventory.refresh.jitter", defaultValue = "0.1")
+    double jitter;
+
+    @Inject
+    @ConfigProperty(name = "inventory.refresh.rate", defaultValue = "100")
+    double rate;
+
+    @Inject
+    @ConfigProperty(name = "inventory.refresh.concurrency", defaultValue = "8")
+    int concurrency;
+
+    @Inject
+    @ConfigProperty(name = "inventory.refresh.maxFailures", defaultValue = "3")
+    int maxFailures;
+
+    @Inject
+    InventoryManager manager;
+
+    @Inject
+    SystemClient systemClient;
+
+    @Inject
+    Meter meter;
+
+    @Inject
+    Tracer tracer;
+
+    private DoubleHistogram lagHistogram;
+    private LongCounter evictionCounter;
+
+    // Consecutive failed refreshes of each host, and the time of its last
+    // refresh or, until it has one, of its first attempt
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    private final Map<String, Long> refreshed = new ConcurrentHashMap<>();
+
+    // Start time, in nanoseconds, of the next lookup allowed by the rate
+    private final AtomicLong nextPermit = new AtomicLong(System.nanoTime());
+
+    private volatile ScheduledFuture<?> nextCycle;
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void init() {
+        lagHistogram = meter.histogramBuilder("inventory.refresh.lag")
+            .setDescription("Time since the properties of a host were last refreshed")
+            .setUnit("ms")
+            .build();
+
+        meter.gaugeBuilder("inventory.refresh.stale")
+            .setDescription("Number of hosts whose last refresh failed, so their"
+                + " properties may be out of date")
+            .setUnit("1")
+            .ofLongs()
+            .buildWithCallback(g -> g.record(failures.size()));
+
+        evictionCounter = meter.counterBuilder("inventory.refresh.evictions")
+            .setDescription("Number of hosts removed after failing to refresh")
+            .setUnit("1")
+            .build();
+    }
+
+    void start(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        if (enabled) {
+            logger.log(Level.INFO, "Refreshing the inventory every {0} ms", interval);
+            scheduleNextCycle();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        ScheduledFuture<?> cycle = nextCycle;
+        if (cycle != null) {
+            cycle.cancel(false);
+        }
+    }
+
+    private void scheduleNextCycle() {
+        if (stopped) {
+            return;
+        }
+        double spread = jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        long delay = Math.max(0, Math.round(interval * (1 + spread)));
+        nextCycle = scheduler.schedule(() -> {
+            CompletableFuture<Void> cycle;
+            try {
+                cycle = refreshAll();
+            } catch (RuntimeException e) {
+                // The next cycle is still scheduled, so refreshing goes on
+                cycle = CompletableFuture.failedFuture(e);
+            }
+            cycle.whenComplete((done, e) -> {
+                if (e != null) {
+                    logger.log(Level.WARNING, "Inventory refresh failed", e);
+                }
+                scheduleNextCycle();
+            });
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Refreshes every host in the inventory once. The returned future
+     * completes when the last lookup of the cycle has completed.
+     */
+    CompletableFuture<Void> refreshAll() {
+        List<String> hostnames = manager.hostnames();
+        // Forgets hosts that were removed since the last cycle
+        Set<String> current = new HashSet<>(hostnames);
+        refreshed.keySet().retainAll(current);
+        failures.keySet().retainAll(current);
+
+        Span span = tracer.spanBuilder("RefreshCycle")
+                          .setNoParent()
+                          .setAttribute("host.count", hostnames.size())
+                          .startSpan();
+        Cycle cycle = new Cycle(hostnames, Context.root().with(span));
+        int workers = Math.max(1, Math.min(concurrency, hostnames.size()));
+        CompletableFuture<?>[] running = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            running[i] = refreshNext(cycle);
+        }
+        return CompletableFuture.allOf(running).whenComplete((done, e) -> {
+            span.setAttribute("refreshed", cycle.refreshed.get());
+            span.setAttribute("failed", cycle.failed.get());
+            span.setAttribute("evicted", cycle.evicted.get());
+            span.end();
+        });
+    }
+
+    private CompletableFuture<Void> refreshNext(Cycle cycle) {
+        int index = cycle.next.getAndIncrement();
+        if (stopped || index >= cycle.hostnames.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String hostname = cycle.hostnames.get(index);
+        return permit(cycle.context)
+            .thenCompose(ready -> {
+                try (Scope scope = cycle.context.makeCurrent()) {
+                    // Without the last known properties, so a dead host
+                    // counts as failed and is eventually evicted
+                    return systemClient.getPropertiesAsync(hostname, systemPort, false);
+                }
+            })
+            .handle((props, e) -> {
+                record(cycle, hostname, e == null ? props : null);
+                return null;
+            })
+            // Continues on the scheduler so long cycles do not grow the stack
+            .thenComposeAsync(done -> refreshNext(cycle), scheduler);
+    }
+
+    /**
+     * Completes when the next lookup may start under the rate limit. Waits
+     * are scheduled rather than slept, so no thread is held while waiting.
+     */
+    private CompletableFuture<Void> permit(Context context) {
+        if (rate <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long spacing = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long now = System.nanoTime();
+        long at = nextPermit.getAndUpdate(p -> Math.max(p, now) + spacing);
+        long wait = at - now;
+        if (wait <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        scheduler.schedule(context.wrap(() -> ready.complete(null)),
+                           wait, TimeUnit.NANOSECONDS);
+        return ready;
+    }
+
+    private void record(Cycle cycle, String hostname, Properties props) {
+        long now = System.nanoTime();
+        // Every attempt records how old the properties of the host are, so
+        // the lag of a host that keeps failing grows until it is evicted
+        Long last = refreshed.putIfAbsent(hostname, now);
+        if (last != null) {
+            lagHistogram.record((now - last) / 1_000_000.0);
+        }
+        if (props != null) {
+            failures.remove(hostname);
+            if (manager.refresh(hostname, props)) {
+                refreshed.put(hostname, now);
+                cycle.refreshed.incrementAndGet();
+            }
+            return;
+        }
+        cycle.failed.incrementAndGet();
+        if (failures.merge(hostname, 1, Integer::sum) >= maxFailures) {
+            failures.remove(hostname);
+            refreshed.remove(hostname);
+            if (manager.remove(hostname)) {
+                Span.fromContext(cycle.context).addEvent("Evicted host",
+                    Attributes.of(HOSTNAME, hostname));
+                evictionCounter.add(1);
+                cycle.evicted.incrementAndGet();
+                logger.log(Level.INFO, "Removed {0} after {1} failed refreshes",
+                    new Object[] { hostname, maxFailures });
+            }
+        }
+    }
+
+    private static class Cycle {
+
+        private final List<String> hostnames;
+        private final Context context;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger refreshed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger evicted = new AtomicInteger();
+
+        Cycle(List<String> hostnames, Context context) {
+            this.hostnames = hostnames;
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Properties;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+
+import io.openliberty.guides.common.PropertiesCodec;
+
+/**
+ * Reads Properties in the compact form the system service offers next to
+ * JSON, described in {@link PropertiesCodec}.
+ */
+public class BinaryPropertiesProvider implements MessageBodyReader<Properties> {
+
+    public static final String MEDIA_TYPE = PropertiesCodec.MEDIA_TYPE;
+    public static final MediaType MEDIA_TYPE_TYPE = MediaType.valueOf(MEDIA_TYPE);
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations,
+                              MediaType mediaType) {
+        return type == Properties.class && MEDIA_TYPE_TYPE.isCompatible(mediaType);
+    }
+
+    @Override
+    public Properties readFrom(Class<Properties> type, Type genericType,
+                               Annotation[] annotations, MediaType mediaType,
+                               MultivaluedMap<String, String> httpHeaders,
+                               InputStream entityStream) throws IOException {
+        return PropertiesCodec.decode(entityStream);
+    }
+}
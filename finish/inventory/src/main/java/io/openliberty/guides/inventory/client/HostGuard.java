@@ -0,0 +1,134 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breaker and bulkhead for the calls to one system service. The
+ * circuit opens after a number of consecutive failures and rejects calls
+ * until the delay has passed. A single probe call is then let through: the
+ * circuit closes again if it succeeds and reopens if it fails. Calls
+ * admitted before the circuit opened may still complete while it is open
+ * or half open, but only the probe decides its next state. At most maxConcurrent
+ * calls are in flight at any time.
+ */
+class HostGuard {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    enum Admission { ALLOWED, PROBE, CIRCUIT_OPEN, BULKHEAD_FULL }
+
+    private final int failureThreshold;
+    private final long delayNanos;
+    private final int maxConcurrent;
+    // Circuits that are not closed, shared by the guards of every host
+    private final AtomicInteger openCircuits;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private int inFlight;
+    private boolean probing;
+    private long openedAt;
+    private boolean discarded;
+
+    HostGuard(int failureThreshold, long delayNanos, int maxConcurrent,
+              AtomicInteger openCircuits) {
+        this.failureThreshold = failureThreshold;
+        this.delayNanos = delayNanos;
+        this.maxConcurrent = maxConcurrent;
+        this.openCircuits = openCircuits;
+    }
+
+    /**
+     * Decides whether a call may start. ALLOWED and PROBE calls must be
+     * followed by exactly one call to {@link #complete(boolean, boolean, long)}.
+     * PROBE means the circuit has just become half-open and the call is its
+     * probe.
+     */
+    synchronized Admission admit(long now) {
+        if (state == State.OPEN) {
+            if (now - openedAt < delayNanos) {
+                return Admission.CIRCUIT_OPEN;
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN && probing) {
+            return Admission.CIRCUIT_OPEN;
+        }
+        if (inFlight >= maxConcurrent) {
+            return Admission.BULKHEAD_FULL;
+        }
+        inFlight++;
+        if (state == State.HALF_OPEN) {
+            probing = true;
+            return Admission.PROBE;
+        }
+        return Admission.ALLOWED;
+    }
+
+    /**
+     * Records the outcome of an admitted call.
+     * @param probe
+     *          - whether the call was admitted as the PROBE.
+     * @return the new state if the circuit changed state, or null.
+     */
+    synchronized State complete(boolean success, boolean probe, long now) {
+        inFlight--;
+        if (probe) {
+            probing = false;
+        } else if (state != State.CLOSED) {
+            // Started before the circuit opened, so it says nothing of now
+            return null;
+        }
+        if (success) {
+            failures = 0;
+            return transition(State.CLOSED, now);
+        }
+        if (state == State.HALF_OPEN
+            || (state == State.CLOSED && ++failures >= failureThreshold)) {
+            failures = 0;
+            return transition(State.OPEN, now);
+        }
+        return null;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Stops counting this circuit once its host has left the inventory.
+     */
+    synchronized void discard() {
+        if (!discarded && state != State.CLOSED) {
+            openCircuits.decrementAndGet();
+        }
+        discarded = true;
+    }
+
+    private State transition(State to, long now) {
+        if (state == to) {
+            return null;
+        }
+        if (!discarded) {
+            if (state == State.CLOSED) {
+                openCircuits.incrementAndGet();
+            } else if (to == State.CLOSED) {
+                openCircuits.decrementAndGet();
+            }
+        }
+        state = to;
+        openedAt = now;
+        return to;
+    }
+}
@@ -0,0 +1,99 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.opentelemetry.context.Context;
+
+/**
+ * Executor for outbound system service calls and fan-out over hosts. By
+ * default the tasks run on Liberty's managed executor. When
+ * inventory.virtualThreads.enabled is true and the JVM supports it, each
+ * task runs on its own virtual thread instead, so blocking I/O does not
+ * hold a platform thread. Either way the caller's OpenTelemetry context is
+ * propagated to the task.
+ */
+@ApplicationScoped
+public class LookupExecutor {
+
+    private static final Logger logger = Logger.getLogger(LookupExecutor.class.getName());
+
+    @Resource(lookup = "java:comp/DefaultManagedExecutorService")
+    ExecutorService managedExecutor;
+
+    @Inject
+    @ConfigProperty(name = "inventory.virtualThreads.enabled", defaultValue = "false")
+    boolean virtualThreads;
+
+    private ExecutorService virtualThreadExecutor;
+    private ExecutorService executor;
+
+    public LookupExecutor() {
+    }
+
+    /**
+     * Creates an initialized executor outside of CDI, for example in tests.
+     */
+    public LookupExecutor(ExecutorService managedExecutor, boolean virtualThreads) {
+        this.managedExecutor = managedExecutor;
+        this.virtualThreads = virtualThreads;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (virtualThreads) {
+            virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+        }
+        executor = Context.taskWrapping(
+            virtualThreadExecutor != null ? virtualThreadExecutor : managedExecutor);
+    }
+
+    public ExecutorService getExecutorService() {
+        return executor;
+    }
+
+    public boolean isVirtual() {
+        return virtualThreadExecutor != null;
+    }
+
+    // Looked up reflectively because the application is compiled for Java 11
+    private ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.log(Level.WARNING, "Virtual threads require Java 21 or later,"
+                + " using the managed executor for system service calls");
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+    }
+}
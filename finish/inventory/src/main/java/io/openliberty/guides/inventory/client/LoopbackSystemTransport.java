@@ -0,0 +1,167 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.config.Config;
+
+/**
+ * Answers for the system service of any hostname in process, so that the
+ * inventory can be load tested with millions of hosts and no network. The
+ * properties of a host are derived from its name, so they are the same on
+ * every call. The latency and the size of the answers are drawn from
+ * configurable distributions, and a fraction of the calls fail.
+ *
+ * A distribution is a number for a constant value, or constant:value,
+ * uniform:min:max or exponential:mean.
+ */
+public class LoopbackSystemTransport implements SystemTransport {
+
+    public static final String NAME = "loopback";
+    public static final String LATENCY = "system.transport.loopback.latency";
+    public static final String ERROR_RATE = "system.transport.loopback.errorRate";
+    public static final String PAYLOAD_SIZE = "system.transport.loopback.payloadSize";
+
+    private static final String[] OS_NAMES = { "Linux", "Windows 11", "Mac OS X", "SunOS" };
+
+    private static final IOException FAILURE = new InjectedFailure();
+
+    private Distribution latencyMillis = Distribution.parse("0");
+    private double errorRate;
+    private Distribution payloadSize = Distribution.parse("0");
+
+    public LoopbackSystemTransport() {
+    }
+
+    /**
+     * Creates a transport outside of MicroProfile Config, for example in
+     * benchmarks.
+     * @param latencyMillis
+     *          - distribution of the time taken by each answer.
+     * @param errorRate
+     *          - fraction of the calls that fail.
+     * @param payloadSize
+     *          - distribution of the characters added to each answer.
+     */
+    public LoopbackSystemTransport(String latencyMillis, double errorRate,
+                                   String payloadSize) {
+        this.latencyMillis = Distribution.parse(latencyMillis);
+        this.errorRate = errorRate;
+        this.payloadSize = Distribution.parse(payloadSize);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void init(Config config) {
+        latencyMillis = Distribution.parse(
+            config.getOptionalValue(LATENCY, String.class).orElse("0"));
+        errorRate = config.getOptionalValue(ERROR_RATE, Double.class).orElse(0.0);
+        payloadSize = Distribution.parse(
+            config.getOptionalValue(PAYLOAD_SIZE, String.class).orElse("0"));
+    }
+
+    @Override
+    public CompletionStage<Properties> send(String hostname, int port) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            return CompletableFuture.failedFuture(FAILURE);
+        }
+        long delay = (long) (latencyMillis.sample(random) * TimeUnit.MILLISECONDS.toNanos(1));
+        int size = (int) payloadSize.sample(random);
+        if (delay <= 0) {
+            return CompletableFuture.completedFuture(properties(hostname, size));
+        }
+        // Waits without holding a thread, like a non-blocking HTTP call
+        return CompletableFuture.supplyAsync(() -> properties(hostname, size),
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS));
+    }
+
+    private Properties properties(String hostname, int size) {
+        int hash = hostname.hashCode() & Integer.MAX_VALUE;
+        Properties properties = new Properties();
+        properties.setProperty("os.name", OS_NAMES[hash % OS_NAMES.length]);
+        properties.setProperty("user.name", "user" + hash);
+        if (size > 0) {
+            properties.setProperty("loopback.payload", "x".repeat(size));
+        }
+        return properties;
+    }
+
+    abstract static class Distribution {
+
+        abstract double sample(ThreadLocalRandom random);
+
+        static Distribution parse(String spec) {
+            String[] parts = spec.trim().split(":");
+            try {
+                switch (parts.length == 1 ? "constant" : parts[0]) {
+                    case "constant":
+                        double value = Double.parseDouble(parts[parts.length - 1]);
+                        return new Distribution() {
+                            @Override
+                            double sample(ThreadLocalRandom random) {
+                                return value;
+                            }
+                        };
+                    case "uniform":
+                        double min = Double.parseDouble(parts[1]);
+                        double max = Double.parseDouble(parts[2]);
+                        return new Distribution() {
+                            @Override
+                            double sample(ThreadLocalRandom random) {
+                                return min + random.nextDouble() * (max - min);
+                            }
+                        };
+                    case "exponential":
+                        double mean = Double.parseDouble(parts[1]);
+                        return new Distribution() {
+                            @Override
+                            double sample(ThreadLocalRandom random) {
+                                return -mean * Math.log(1 - random.nextDouble());
+                            }
+                        };
+                    default:
+                        break;
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid distribution " + spec, e);
+            }
+            throw new IllegalArgumentException("Unknown distribution " + spec
+                + ", expected constant, uniform or exponential");
+        }
+    }
+
+    // Shared by every failed call, so it carries no stack trace
+    private static final class InjectedFailure extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        InjectedFailure() {
+            super("Injected loopback failure");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
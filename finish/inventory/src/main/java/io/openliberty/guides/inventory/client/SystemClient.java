@@ -11,20 +11,60 @@
 // end::copyright[]
 package io.openliberty.guides.inventory.client;
 
+import java.lang.reflect.Method;
 import java.net.URI;
+import java.util.Map;
 import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
 import jakarta.ws.rs.client.Invocation.Builder;
+import jakarta.ws.rs.client.WebTarget;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 
-public class SystemClient implements AutoCloseable {
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.trace.Span;
+
+import io.openliberty.guides.common.SampledLogger;
+
+/**
+ * Client for the system service. A single JAX-RS client, and therefore a
+ * single keep-alive connection pool, is shared by every lookup for the
+ * lifetime of the application. Each system service is guarded by its own
+ * circuit breaker and bulkhead, so a host that is down fails fast instead
+ * of holding threads until its calls time out.
+ *
+ * The calls go over HTTP unless system.transport names another
+ * {@link SystemTransport}, such as the in-process loopback transport used
+ * for scale tests.
+ */
+@ApplicationScoped
+public class SystemClient {
 
     // tag::getLogger[]
     private static final Logger logger = Logger.getLogger(SystemClient.class.getName());
@@ -32,22 +72,396 @@ public class SystemClient implements AutoCloseable {
 
     private final String SYSTEM_PROPERTIES = "/system/properties";
     private final String PROTOCOL = "http";
+    // Only the properties kept by the inventory are requested
+    private final String PROPERTY_KEYS = "os.name,user.name";
+    // The compact form is preferred, JSON is read from older system services
+    private static final String ACCEPT_BINARY =
+        BinaryPropertiesProvider.MEDIA_TYPE + ", " + MediaType.APPLICATION_JSON + ";q=0.9";
+
+    private static final AttributeKey<String> HOST = AttributeKey.stringKey("host");
+    private static final AttributeKey<String> STATE = AttributeKey.stringKey("state");
+    private static final AttributeKey<String> REASON = AttributeKey.stringKey("reason");
+
+    @Inject
+    @ConfigProperty(name = "system.http.pool.size", defaultValue = "50")
+    int poolSize;
+
+    @Inject
+    @ConfigProperty(name = "system.http.pool.maxPerRoute", defaultValue = "10")
+    int maxPerRoute;
+
+    @Inject
+    @ConfigProperty(name = "system.http.pool.connectionTTL", defaultValue = "60")
+    long connectionTTL;
+
+    @Inject
+    @ConfigProperty(name = "system.http.connectTimeout", defaultValue = "2000")
+    long connectTimeout;
+
+    @Inject
+    @ConfigProperty(name = "system.http.readTimeout", defaultValue = "5000")
+    long readTimeout;
+
+    @Inject
+    @ConfigProperty(name = "system.breaker.failureThreshold", defaultValue = "5")
+    int breakerFailureThreshold;
+
+    @Inject
+    @ConfigProperty(name = "system.breaker.delay", defaultValue = "10000")
+    long breakerDelay;
+
+    @Inject
+    @ConfigProperty(name = "system.breaker.fallbackToLastKnown", defaultValue = "false")
+    boolean fallbackToLastKnown;
+
+    @Inject
+    @ConfigProperty(name = "system.bulkhead.maxConcurrent", defaultValue = "20")
+    int bulkheadMaxConcurrent;
+
+    @Inject
+    @ConfigProperty(name = "system.http.binary", defaultValue = "true")
+    boolean binary;
+
+    @Inject
+    @ConfigProperty(name = "system.http.targets.maxEntries", defaultValue = "10000")
+    int targetsMaxEntries;
+
+    @Inject
+    @ConfigProperty(name = "system.http.log.rate", defaultValue = "1")
+    int logRate;
+
+    @Inject
+    @ConfigProperty(name = "system.transport", defaultValue = "http")
+    String transportName;
+
+    @Inject
+    Config config;
+
+    @Inject
+    Meter meter;
+
+    // Completes asynchronous invocations
+    @Inject
+    LookupExecutor lookupExecutor;
 
-    private String url;
     private Client client;
-    private Builder clientBuilder;
+    // URL and prepared request target of the system service of each host,
+    // so that lookups do not parse them again
+    private Cache<String, Target> targets;
+    // Replaces the HTTP calls when another transport is selected
+    private SystemTransport transport;
+
+    // Last properties received from each system service URL, with their
+    // ETag, so unchanged properties are revalidated without a body. Bounded
+    // like the targets, so the least used hosts are revalidated in full.
+    private Cache<String, Validated> validated;
+
+    // Circuit breaker and bulkhead of each system service URL, dropped when
+    // the host leaves the inventory
+    private final Map<String, HostGuard> guards = new ConcurrentHashMap<>();
+    private final AtomicInteger openCircuits = new AtomicInteger();
+
+    private LongCounter breakerTransitions;
+    private LongCounter rejections;
+    private SampledLogger responses;
+    private SampledLogger failures;
+
+    public SystemClient() {
+    }
+
+    /**
+     * Creates an initialized client outside of CDI, for example in tests.
+     */
+    public SystemClient(LookupExecutor lookupExecutor, int poolSize,
+                        int maxPerRoute, long connectionTTL) {
+        this(lookupExecutor, poolSize, maxPerRoute, connectionTTL, null);
+    }
+
+    /**
+     * Creates an initialized client outside of CDI that calls system
+     * services through transport, for example in benchmarks.
+     */
+    public SystemClient(LookupExecutor lookupExecutor, SystemTransport transport) {
+        this(lookupExecutor, 50, 10, 60, transport);
+    }
+
+    private SystemClient(LookupExecutor lookupExecutor, int poolSize,
+                         int maxPerRoute, long connectionTTL, SystemTransport transport) {
+        this.lookupExecutor = lookupExecutor;
+        this.poolSize = poolSize;
+        this.maxPerRoute = maxPerRoute;
+        this.connectionTTL = connectionTTL;
+        this.connectTimeout = 2000;
+        this.readTimeout = 5000;
+        this.breakerFailureThreshold = 5;
+        this.breakerDelay = 10000;
+        this.bulkheadMaxConcurrent = 20;
+        this.targetsMaxEntries = 10000;
+        this.binary = true;
+        this.logRate = 1;
+        this.transportName = transport == null ? "http" : transport.name();
+        this.transport = transport;
+        this.meter = OpenTelemetry.noop().getMeter("inventory");
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (transport == null) {
+            this.transport = loadTransport();
+        }
+        if (transport == null) {
+            this.client = buildClient();
+        }
+        this.targets = Caffeine.newBuilder().maximumSize(targetsMaxEntries).build();
+        this.validated = Caffeine.newBuilder().maximumSize(targetsMaxEntries).build();
+        this.responses = new SampledLogger(logger,
+            "Received response with status: {0}", logRate);
+        this.failures = new SampledLogger(logger,
+            "System service call failed: {0}", logRate);
+
+        breakerTransitions = meter.counterBuilder("system.client.breaker.transitions")
+            .setDescription("Number of times a system service circuit changed state")
+            .setUnit("1")
+            .build();
+
+        rejections = meter.counterBuilder("system.client.rejected")
+            .setDescription("Number of system service calls rejected without being sent")
+            .setUnit("1")
+            .build();
+
+        meter.gaugeBuilder("system.client.breaker.open")
+            .setDescription("Number of system services whose circuit is not closed")
+            .setUnit("1")
+            .ofLongs()
+            .buildWithCallback(g -> g.record(openCircuits.get()));
+    }
+
+    public Properties getProperties(String hostname, int port) {
+        Target target = target(hostname, port);
+        if (target == null) {
+            return null;
+        }
+        String url = target.url;
+        if (transport != null) {
+            return send(url, hostname, port, true).toCompletableFuture().join();
+        }
+        Builder builder = buildClientBuilder(target.webTarget);
+        if (builder == null) {
+            return null;
+        }
+        Call call = admit(url);
+        if (call == null) {
+            return fallback(url);
+        }
+        Properties properties = getPropertiesHelper(call, builder);
+        return properties != null ? properties : fallback(url);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getProperties(String, int)}. The
+     * returned stage completes with null when the properties cannot be
+     * retrieved.
+     */
+    public CompletionStage<Properties> getPropertiesAsync(String hostname, int port) {
+        return getPropertiesAsync(hostname, port, true);
+    }
+
+    /**
+     * @param useLastKnown
+     *          - whether a failed call may complete with the last known
+     *          properties when system.breaker.fallbackToLastKnown is set.
+     *          Background refreshes pass false, so that they see failures.
+     */
+    public CompletionStage<Properties> getPropertiesAsync(String hostname, int port,
+                                                          boolean useLastKnown) {
+        Target target = target(hostname, port);
+        if (target == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String url = target.url;
+        if (transport != null) {
+            return send(url, hostname, port, useLastKnown);
+        }
+        Builder builder = buildClientBuilder(target.webTarget);
+        if (builder == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Call call = admit(url);
+        if (call == null) {
+            return CompletableFuture.completedFuture(useLastKnown ? fallback(url) : null);
+        }
+        CompletionStage<Response> response;
+        try {
+            response = conditional(call, builder).rx().get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response
+            .whenComplete((r, e) -> {
+                if (e != null) {
+                    call.complete(false);
+                }
+            })
+            .thenApply(r -> {
+                Properties props = readProperties(call, r);
+                return props != null ? props : (useLastKnown ? fallback(url) : null);
+            })
+            .exceptionally(e -> {
+                Level level = failures.sample();
+                if (level != null) {
+                    failures.log(level, call.span, e);
+                }
+                return useLastKnown ? fallback(url) : null;
+            });
+    }
+
+    /**
+     * Returns the URL and request target of the system service of a host,
+     * prepared on its first lookup. A target holds no resolved address, as
+     * connections resolve the hostname, so it is only prepared again when
+     * the port changes. The least used hosts are evicted beyond
+     * system.http.targets.maxEntries.
+     * @return the target, or null if the URL is not valid.
+     */
+    Target target(String hostname, int port) {
+        Target target = targets.getIfPresent(hostname);
+        if (target != null && target.port == port) {
+            return target;
+        }
+        String url = buildUrl(PROTOCOL, hostname, port, SYSTEM_PROPERTIES);
+        if (url == null) {
+            return null;
+        }
+        target = new Target(port, url, client == null ? null
+            : client.target(url).queryParam("keys", PROPERTY_KEYS));
+        targets.put(hostname, target);
+        return target;
+    }
+
+    // Calls the system service through the selected transport
+    private CompletionStage<Properties> send(String url, String hostname, int port,
+                                             boolean useLastKnown) {
+        Call call = admit(url);
+        if (call == null) {
+            return CompletableFuture.completedFuture(useLastKnown ? fallback(url) : null);
+        }
+        CompletionStage<Properties> properties;
+        try {
+            properties = transport.send(hostname, port);
+        } catch (RuntimeException e) {
+            properties = CompletableFuture.failedFuture(e);
+        }
+        return properties.handle((props, e) -> {
+            call.complete(e == null);
+            if (e != null) {
+                Level level = failures.sample();
+                if (level != null) {
+                    failures.log(level, call.span, e);
+                }
+                return useLastKnown ? fallback(url) : null;
+            }
+            if (props != null && fallbackToLastKnown) {
+                validated.put(url, new Validated(null, props));
+            }
+            return props;
+        });
+    }
+
+    private SystemTransport loadTransport() {
+        if ("http".equals(transportName)) {
+            return null;
+        }
+        for (SystemTransport candidate : ServiceLoader.load(SystemTransport.class,
+                 SystemTransport.class.getClassLoader())) {
+            if (candidate.name().equals(transportName)) {
+                candidate.init(config);
+                logger.log(Level.INFO, "Calling system services through the {0} transport",
+                    transportName);
+                return candidate;
+            }
+        }
+        logger.log(Level.WARNING, "Unknown system.transport {0},"
+            + " calling system services over HTTP", transportName);
+        return null;
+    }
 
-    public void init(String hostname, int port) {
-        this.initHelper(hostname, port);
+    /**
+     * Lets a call to the system service at url through its circuit breaker
+     * and bulkhead.
+     * @return the admitted call, or null if the call is rejected.
+     */
+    private Call admit(String url) {
+        if (url == null) {
+            return null;
+        }
+        HostGuard guard = guards.computeIfAbsent(url, u -> new HostGuard(
+            breakerFailureThreshold, TimeUnit.MILLISECONDS.toNanos(breakerDelay),
+            bulkheadMaxConcurrent, openCircuits));
+        Span span = Span.current();
+        HostGuard.Admission admission = guard.admit(System.nanoTime());
+        switch (admission) {
+            case PROBE:
+                transitioned(url, HostGuard.State.HALF_OPEN, span);
+                return new Call(url, guard, span, true);
+            case ALLOWED:
+                return new Call(url, guard, span, false);
+            default:
+                String reason = admission == HostGuard.Admission.CIRCUIT_OPEN
+                    ? "circuit_open" : "bulkhead_full";
+                rejections.add(1, Attributes.of(REASON, reason));
+                span.addEvent("System service call rejected",
+                    Attributes.of(HOST, url, REASON, reason));
+                return null;
+        }
     }
 
-    private void initHelper(String hostname, int port) {
-        this.url = buildUrl(PROTOCOL, hostname, port, SYSTEM_PROPERTIES);
-        this.clientBuilder = buildClientBuilder(this.url);
+    private void transitioned(String url, HostGuard.State state, Span span) {
+        String name = state.name().toLowerCase();
+        breakerTransitions.add(1, Attributes.of(STATE, name));
+        span.addEvent("Circuit " + name, Attributes.of(HOST, url, STATE, name));
+        logger.log(Level.INFO, "Circuit to {0} is {1}", new Object[] { url, name });
+    }
+
+    /**
+     * Drops the prepared target, the last properties and the circuit of the
+     * system service of a host that has left the inventory.
+     */
+    public void forget(String hostname, int port) {
+        targets.invalidate(hostname);
+        String url = buildUrl(PROTOCOL, hostname, port, SYSTEM_PROPERTIES);
+        if (url == null) {
+            return;
+        }
+        validated.invalidate(url);
+        HostGuard guard = guards.remove(url);
+        if (guard != null) {
+            guard.discard();
+        }
+    }
+
+    /**
+     * Drops what is kept about every system service, when the inventory is
+     * cleared.
+     */
+    public void forgetAll() {
+        targets.invalidateAll();
+        validated.invalidateAll();
+        for (String url : guards.keySet()) {
+            HostGuard guard = guards.remove(url);
+            if (guard != null) {
+                guard.discard();
+            }
+        }
     }
 
-    public Properties getProperties() {
-        return getPropertiesHelper(this.clientBuilder);
+    // The last properties received from the system service, if enabled
+    private Properties fallback(String url) {
+        if (!fallbackToLastKnown || url == null) {
+            return null;
+        }
+        Validated last = validated.getIfPresent(url);
+        return last == null ? null : last.properties;
     }
 
     // tag::doc[]
@@ -77,10 +491,41 @@ public class SystemClient implements AutoCloseable {
         }
     }
 
-    protected Builder buildClientBuilder(String urlString) {
+    /**
+     * Builds the shared client. The connection pool settings are applied
+     * through the RESTEasy client builder that backs Liberty's RESTful Web
+     * Services client. Other implementations keep their default pooling.
+     */
+    protected Client buildClient() {
+        ClientBuilder builder = ClientBuilder.newBuilder();
+        builder.executorService(lookupExecutor.getExecutorService())
+               .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+               .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+               .register(BinaryPropertiesProvider.class);
+        configure(builder, "connectionPoolSize",
+            new Class<?>[] { int.class }, poolSize);
+        configure(builder, "maxPooledPerRoute",
+            new Class<?>[] { int.class }, maxPerRoute);
+        configure(builder, "connectionTTL",
+            new Class<?>[] { long.class, TimeUnit.class }, connectionTTL, TimeUnit.SECONDS);
+        return builder.build();
+    }
+
+    private void configure(ClientBuilder builder, String name,
+                           Class<?>[] types, Object... args) {
         try {
-            this.client = ClientBuilder.newClient();
-            Builder builder = client.target(urlString).request();
+            Method method = builder.getClass().getMethod(name, types);
+            method.invoke(builder, args);
+        } catch (ReflectiveOperationException e) {
+            logger.log(Level.WARNING, "Client builder " + builder.getClass().getName()
+                + " does not support " + name + ", using its default", e);
+        }
+    }
+
+    protected Builder buildClientBuilder(WebTarget target) {
+        try {
+            Builder builder = target.request()
+                                    .accept(binary ? ACCEPT_BINARY : MediaType.APPLICATION_JSON);
             return builder.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
         } catch (Exception e) {
             // tag::log2[]
@@ -91,27 +536,17 @@ public class SystemClient implements AutoCloseable {
         }
     }
 
-    protected Properties getPropertiesHelper(Builder builder) {
+    protected Properties getPropertiesHelper(Call call, Builder builder) {
         try {
-            Response response = builder.get();
-            // tag::log3[]
-            logger.log(Level.INFO,
-                "Received response with status: {0}", response.getStatus());
-            // end::log3[]
-            if (response.getStatus() == Status.OK.getStatusCode()) {
-                return response.readEntity(Properties.class);
-            } else {
-                // tag::log4[]
-                logger.log(Level.WARNING,
-                    "Response Status is not OK: {0}", response.getStatus());
-                // end::log4[]
-            }
+            return readProperties(call, conditional(call, builder).get());
         } catch (RuntimeException e) {
+            call.complete(false);
             // tag::log5[]
             logger.log(Level.SEVERE,
                 "Runtime exception while invoking system service", e);
             // end::log5[]
         } catch (Exception e) {
+            call.complete(false);
             // tag::log6[]
             logger.log(Level.SEVERE,
                 "Unexpected exception while processing system service request", e);
@@ -120,8 +555,58 @@ public class SystemClient implements AutoCloseable {
         return null;
     }
 
-    @Override
+    // Keeps the entry the condition is sent for, as it may be evicted
+    // before the response arrives
+    private Builder conditional(Call call, Builder builder) {
+        Validated last = validated.getIfPresent(call.url);
+        if (last != null && last.entityTag != null) {
+            builder.header(HttpHeaders.IF_NONE_MATCH, last.entityTag);
+            call.validated = last;
+        }
+        return builder;
+    }
+
+    private Properties readProperties(Call call, Response response) {
+        String url = call.url;
+        // Server errors count against the circuit, other answers show the
+        // system service is up
+        call.complete(response.getStatus() < 500);
+        try {
+            // tag::log3[]
+            Level level = responses.sample();
+            if (level != null) {
+                responses.log(level, call.span, response.getStatus());
+            }
+            // end::log3[]
+            if (response.getStatus() == Status.OK.getStatusCode()) {
+                Properties properties = response.readEntity(Properties.class);
+                // Sent back as received, so it needs no parsing or formatting
+                String entityTag = response.getHeaderString(HttpHeaders.ETAG);
+                if (entityTag != null || fallbackToLastKnown) {
+                    validated.put(url, new Validated(entityTag, properties));
+                }
+                return properties;
+            } else if (response.getStatus() == Status.NOT_MODIFIED.getStatusCode()
+                       && call.validated != null) {
+                return call.validated.properties;
+            } else {
+                // tag::log4[]
+                logger.log(Level.WARNING,
+                    "Response Status is not OK: {0}", response.getStatus());
+                // end::log4[]
+            }
+        } finally {
+            // Releases the connection back to the pool
+            response.close();
+        }
+        return null;
+    }
+
+    @PreDestroy
     public void close() {
+        if (transport != null) {
+            transport.close();
+        }
         if (client != null) {
             client.close();
             // tag::log7[]
@@ -130,4 +615,63 @@ public class SystemClient implements AutoCloseable {
             // end::log7[]
         }
     }
+
+    /**
+     * A call admitted by the guard of a system service. Completing it more
+     * than once has no effect.
+     */
+    protected final class Call {
+
+        private final String url;
+        private final HostGuard guard;
+        private final Span span;
+        private final boolean probe;
+        private boolean completed;
+        // The last properties, when the request is sent on condition
+        private Validated validated;
+
+        Call(String url, HostGuard guard, Span span, boolean probe) {
+            this.url = url;
+            this.guard = guard;
+            this.span = span;
+            this.probe = probe;
+        }
+
+        void complete(boolean success) {
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                completed = true;
+            }
+            HostGuard.State state = guard.complete(success, probe, System.nanoTime());
+            if (state != null) {
+                transitioned(url, state, span);
+            }
+        }
+    }
+
+    static final class Target {
+
+        final int port;
+        final String url;
+        final WebTarget webTarget;
+
+        Target(int port, String url, WebTarget webTarget) {
+            this.port = port;
+            this.url = url;
+            this.webTarget = webTarget;
+        }
+    }
+
+    private static class Validated {
+
+        private final String entityTag;
+        private final Properties properties;
+
+        Validated(String entityTag, Properties properties) {
+            this.entityTag = entityTag;
+            this.properties = properties;
+        }
+    }
 }
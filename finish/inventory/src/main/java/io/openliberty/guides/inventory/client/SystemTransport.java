@@ -0,0 +1,50 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import java.util.Properties;
+import java.util.concurrent.CompletionStage;
+
+import org.eclipse.microprofile.config.Config;
+
+/**
+ * Carries the calls of {@link SystemClient} to system services in place of
+ * HTTP. Implementations are found with ServiceLoader and the one named by
+ * system.transport is used. The client still guards each system service
+ * with its circuit breaker and bulkhead, and serves the last known
+ * properties when a call fails.
+ */
+public interface SystemTransport extends AutoCloseable {
+
+    /**
+     * The name that selects this transport in system.transport.
+     */
+    String name();
+
+    /**
+     * Reads the settings of the transport, once before the first call.
+     */
+    default void init(Config config) {
+    }
+
+    /**
+     * Requests the properties of the system service of a host.
+     * @return a stage that completes with the properties, with null when
+     *         the service answers without them, or exceptionally when it
+     *         cannot be reached or fails, which counts against its circuit.
+     */
+    CompletionStage<Properties> send(String hostname, int port);
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,43 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.model;
+
+import java.util.List;
+
+public class BatchReport {
+
+    private final List<RegistrationResult> results;
+    private final int registered;
+
+    public BatchReport(List<RegistrationResult> results) {
+        this.results = results;
+        int count = 0;
+        for (RegistrationResult result : results) {
+            if (result.isRegistered()) {
+                count++;
+            }
+        }
+        this.registered = count;
+    }
+
+    public List<RegistrationResult> getResults() {
+        return results;
+    }
+
+    public int getRegistered() {
+        return registered;
+    }
+
+    public int getFailed() {
+        return results.size() - registered;
+    }
+}
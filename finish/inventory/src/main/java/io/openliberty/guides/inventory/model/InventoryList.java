@@ -16,9 +16,34 @@ import java.util.List;
 public class InventoryList {
 
     private List<SystemData> systems;
+    private int total;
+    private String next;
+    private long version;
 
-    public InventoryList(List<SystemData> systems) {
+    /**
+     * Creates a snapshot of the whole inventory.
+     * @param version
+     *          - version of the inventory the snapshot was taken at.
+     */
+    public InventoryList(List<SystemData> systems, long version) {
+        this(systems, systems.size(), null, version);
+    }
+
+    /**
+     * Creates one page of the inventory.
+     * @param total
+     *          - number of systems in the whole inventory.
+     * @param next
+     *          - token for the following page, or null on the last page.
+     * @param version
+     *          - version of the inventory when the page was started.
+     */
+    public InventoryList(List<SystemData> systems, int total, String next,
+                         long version) {
         this.systems = systems;
+        this.total = total;
+        this.next = next;
+        this.version = version;
     }
 
     public List<SystemData> getSystems() {
@@ -26,7 +51,15 @@ public class InventoryList {
     }
 
     public int getTotal() {
-        return systems.size();
+        return total;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public long getVersion() {
+        return version;
     }
 }
 
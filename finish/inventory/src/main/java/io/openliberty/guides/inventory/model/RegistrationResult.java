@@ -0,0 +1,37 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.model;
+
+public class RegistrationResult {
+
+    private final String hostname;
+    private final boolean registered;
+    private final String error;
+
+    public RegistrationResult(String hostname, boolean registered, String error) {
+        this.hostname = hostname;
+        this.registered = registered;
+        this.error = error;
+    }
+
+    public String getHostname() {
+        return hostname;
+    }
+
+    public boolean isRegistered() {
+        return registered;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -11,24 +11,75 @@
 // end::copyright[]
 package io.openliberty.guides.inventory.model;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class SystemData {
+import jakarta.json.bind.annotation.JsonbTransient;
+
+/**
+ * Immutable record of a host in the inventory. Only the tracked properties
+ * are kept, as plain fields, and their values are shared between hosts so
+ * that a large inventory holds each distinct OS and user name once. Two
+ * records are equal when they are for the same hostname.
+ */
+public final class SystemData {
+
+    public static final String OS_NAME = "os.name";
+    public static final String USER_NAME = "user.name";
+
+    // Bounded so that unexpected high-cardinality values are kept as they are
+    private static final int MAX_SHARED_VALUES = 4096;
+    private static final Map<String, String> SHARED_VALUES = new ConcurrentHashMap<>();
 
     private final String hostname;
-    private final Properties properties;
+    private final String osName;
+    private final String userName;
 
+    public SystemData(String hostname, String osName, String userName) {
+        this.hostname = Objects.requireNonNull(hostname, "hostname");
+        this.osName = share(osName);
+        this.userName = share(userName);
+    }
+
+    /**
+     * Creates a record from the properties returned by the system service.
+     * Properties that are not tracked are ignored.
+     */
     public SystemData(String hostname, Properties properties) {
-        this.hostname = hostname;
-        this.properties = properties;
+        this(hostname, properties.getProperty(OS_NAME),
+             properties.getProperty(USER_NAME));
     }
 
     public String getHostname() {
         return hostname;
     }
 
-    public Properties getProperties() {
-        return properties;
+    @JsonbTransient
+    public String getOsName() {
+        return osName;
+    }
+
+    @JsonbTransient
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * Returns the tracked properties in the form they are served in.
+     */
+    public Map<String, String> getProperties() {
+        Map<String, String> properties = new LinkedHashMap<>(4);
+        if (osName != null) {
+            properties.put(OS_NAME, osName);
+        }
+        if (userName != null) {
+            properties.put(USER_NAME, userName);
+        }
+        return Collections.unmodifiableMap(properties);
     }
 
     @Override
@@ -38,5 +89,30 @@ public class SystemData {
         }
         return false;
     }
-}
 
+    @Override
+    public int hashCode() {
+        return hostname.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "SystemData[" + hostname + ", " + OS_NAME + "=" + osName
+            + ", " + USER_NAME + "=" + userName + "]";
+    }
+
+    private static String share(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = SHARED_VALUES.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        if (SHARED_VALUES.size() >= MAX_SHARED_VALUES) {
+            return value;
+        }
+        shared = SHARED_VALUES.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+}
@@ -0,0 +1,119 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.openliberty.guides.inventory.model.SystemData;
+
+/**
+ * Keeps the systems as objects on the Java heap. Keyed by hostname so that
+ * lookups and inserts never scan or take a global lock.
+ */
+public class HeapInventoryStore implements InventoryStore {
+
+    private final ConcurrentNavigableMap<String, SystemData> systems =
+        new ConcurrentSkipListMap<>();
+    // ConcurrentSkipListMap.size() walks the whole map
+    private final AtomicInteger size = new AtomicInteger();
+    private final OsFamilyCounts osFamilyCounts = new OsFamilyCounts();
+
+    @Override
+    public boolean put(SystemData system) {
+        int family = OsFamilyCounts.family(system.getOsName());
+        SystemData previous = systems.put(system.getHostname(), system);
+        if (previous == null) {
+            size.incrementAndGet();
+            osFamilyCounts.added(family);
+            return true;
+        }
+        osFamilyCounts.replaced(OsFamilyCounts.family(previous.getOsName()), family);
+        return false;
+    }
+
+    @Override
+    public SystemData get(String hostname) {
+        return systems.get(hostname);
+    }
+
+    @Override
+    public boolean replace(SystemData system) {
+        SystemData previous = systems.replace(system.getHostname(), system);
+        if (previous == null) {
+            return false;
+        }
+        osFamilyCounts.replaced(OsFamilyCounts.family(previous.getOsName()),
+                                OsFamilyCounts.family(system.getOsName()));
+        return true;
+    }
+
+    @Override
+    public boolean remove(String hostname) {
+        SystemData previous = systems.remove(hostname);
+        if (previous != null) {
+            size.decrementAndGet();
+            osFamilyCounts.removed(OsFamilyCounts.family(previous.getOsName()));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public List<SystemData> page(String after, int limit) {
+        Collection<SystemData> remaining = after == null
+            ? systems.values()
+            : systems.tailMap(after, false).values();
+        List<SystemData> page = new ArrayList<>(Math.min(limit, size.get()));
+        for (SystemData system : remaining) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(system);
+        }
+        return page;
+    }
+
+    @Override
+    public Iterator<SystemData> iterator() {
+        return systems.values().iterator();
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public OsFamilyCounts osFamilyCounts() {
+        return osFamilyCounts;
+    }
+
+    @Override
+    public int clear() {
+        int removed = 0;
+        for (String host : systems.keySet()) {
+            SystemData previous = systems.remove(host);
+            if (previous != null) {
+                osFamilyCounts.removed(OsFamilyCounts.family(previous.getOsName()));
+                removed++;
+            }
+        }
+        size.addAndGet(-removed);
+        return removed;
+    }
+}
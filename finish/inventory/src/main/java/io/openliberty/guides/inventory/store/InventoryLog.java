@@ -0,0 +1,426 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import io.openliberty.guides.inventory.model.SystemData;
+
+/**
+ * Append-only log of inventory changes, split into numbered segment files.
+ * Changes are appended to a buffer in memory, and callers then wait until
+ * their change is on disk. Whichever caller finds no write in progress
+ * writes everything appended so far and forces it to disk once, so
+ * concurrent callers share a single fsync.
+ *
+ * <p>Each record is its payload length, the CRC-32 of the payload, and
+ * the payload: a type byte followed by the hostname, OS name and user name
+ * for a put, or by the hostname for a remove. A record that is cut short or fails its checksum ends a
+ * segment when it is read back.
+ *
+ * <p>A write or sync that fails leaves the log failed for good. The segment
+ * is cut back to its last synced record where possible, nothing after that
+ * record counts as durable, and every later wait or append fails. Retrying
+ * is not safe, because a failed sync may have dropped writes that seemed to
+ * succeed before it.
+ */
+public class InventoryLog implements AutoCloseable {
+
+    static final byte PUT = 1;
+    static final byte CLEAR = 2;
+    static final byte REMOVE = 3;
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_BYTES = 1 + 3 * (Short.BYTES + Short.MAX_VALUE);
+    // Regions of files larger than this are mapped one at a time
+    private static final long MAX_MAPPED_BYTES = 1L << 30;
+
+    /**
+     * Receives the records read back from a segment or snapshot.
+     */
+    public interface Replay {
+
+        void put(SystemData system);
+
+        void remove(String hostname);
+
+        void clear();
+    }
+
+    private final Path directory;
+
+    // Orders writes to the file, including segment rotation
+    private final Lock fileLock = new ReentrantLock();
+    // Guards the buffer of appended records
+    private final Lock appendLock = new ReentrantLock();
+    private final Lock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+
+    private FileChannel channel;
+    private long segment;
+    // Written under the append lock, read without it
+    private volatile long segmentBytes;
+    // Bytes of the current segment that are on disk
+    private long syncedBytes;
+    private volatile IOException failure;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private long appended;
+    private long durable;
+    private boolean syncing;
+
+    /**
+     * Opens a new segment with the given number for appending.
+     */
+    public InventoryLog(Path directory, long segment) throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.channel = open(segment);
+    }
+
+    public static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("log-%016d", segment));
+    }
+
+    /**
+     * Appends a put and returns its sequence number, to wait for with
+     * {@link #awaitDurable(long)}. The caller holds the append lock so that
+     * the log order is the order in which changes are applied.
+     */
+    long appendPut(SystemData system) {
+        byte[] host = utf8(system.getHostname());
+        byte[] os = utf8(system.getOsName());
+        byte[] user = utf8(system.getUserName());
+        int length = recordBytes(host, os, user);
+        reserve(length);
+        writePut(pending, host, os, user);
+        segmentBytes += length;
+        return ++appended;
+    }
+
+    long appendRemove(String hostname) {
+        byte[] host = utf8(hostname);
+        int length = HEADER_BYTES + 1 + Short.BYTES + host.length;
+        reserve(length);
+        int start = pending.position() + HEADER_BYTES;
+        pending.position(start);
+        pending.put(REMOVE);
+        putField(pending, host);
+        seal(pending, start);
+        segmentBytes += length;
+        return ++appended;
+    }
+
+    long appendClear() {
+        int length = HEADER_BYTES + 1;
+        reserve(length);
+        int start = pending.position() + HEADER_BYTES;
+        pending.position(start);
+        pending.put(CLEAR);
+        seal(pending, start);
+        segmentBytes += length;
+        return ++appended;
+    }
+
+    /**
+     * Returns the size of a framed put record.
+     */
+    static int recordBytes(byte[] host, byte[] os, byte[] user) {
+        return HEADER_BYTES + 1 + 3 * Short.BYTES + host.length
+            + (os == null ? 0 : os.length) + (user == null ? 0 : user.length);
+    }
+
+    /**
+     * Writes a framed put record, which must fit in the buffer.
+     */
+    static void writePut(ByteBuffer buffer, byte[] host, byte[] os, byte[] user) {
+        int start = buffer.position() + HEADER_BYTES;
+        buffer.position(start);
+        buffer.put(PUT);
+        putField(buffer, host);
+        putField(buffer, os);
+        putField(buffer, user);
+        seal(buffer, start);
+    }
+
+    // Fills in the header of the record whose payload starts at start
+    private static void seal(ByteBuffer buffer, int start) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start).limit(buffer.position());
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        buffer.putInt(start - HEADER_BYTES, buffer.position() - start);
+        buffer.putInt(start - Integer.BYTES, (int) crc.getValue());
+    }
+
+    Lock appendLock() {
+        return appendLock;
+    }
+
+    long segment() {
+        return segment;
+    }
+
+    long segmentBytes() {
+        return segmentBytes;
+    }
+
+    /**
+     * Waits until every record up to the sequence number is on disk.
+     */
+    void awaitDurable(long sequence) throws IOException {
+        syncLock.lock();
+        try {
+            while (durable < sequence) {
+                checkFailure();
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                syncLock.unlock();
+                long written = -1;
+                try {
+                    written = flush();
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    durable = Math.max(durable, written);
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Ends the current segment and continues in the next one.
+     * @return the number of the new segment.
+     */
+    long rotate() throws IOException {
+        fileLock.lock();
+        try {
+            long written = flush();
+            FileChannel next = open(segment + 1);
+            channel.close();
+            channel = next;
+            segment++;
+            syncedBytes = 0;
+            appendLock.lock();
+            try {
+                // Records appended since the flush go to the new segment
+                segmentBytes = pending.position();
+            } finally {
+                appendLock.unlock();
+            }
+            markDurable(written);
+            return segment;
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileLock.lock();
+        try {
+            markDurable(flush());
+            channel.close();
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the records of a file, from the given offset, until its end or
+     * the first record that is cut short or corrupt.
+     * @return the offset after the last complete record.
+     */
+    public static long read(Path file, long offset, Replay replay) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            long position = offset;
+            while (position < size) {
+                long regionBytes = Math.min(size - position, MAX_MAPPED_BYTES);
+                MappedByteBuffer region = in.map(MapMode.READ_ONLY, position, regionBytes);
+                int consumed = readRecords(region, replay);
+                boolean last = position + regionBytes == size;
+                position += consumed;
+                // Short of the end of a middle region, the next record is
+                // read again from the start of the following region
+                if (consumed == 0 || (consumed < regionBytes && last)) {
+                    break;
+                }
+            }
+            return position;
+        }
+    }
+
+    private static int readRecords(ByteBuffer region, Replay replay) {
+        CRC32 crc = new CRC32();
+        while (region.remaining() >= HEADER_BYTES) {
+            int start = region.position();
+            int length = region.getInt();
+            int checksum = region.getInt();
+            if (length < 1 || length > MAX_RECORD_BYTES || length > region.remaining()) {
+                region.position(start);
+                break;
+            }
+            ByteBuffer payload = region.slice();
+            payload.limit(length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                region.position(start);
+                break;
+            }
+            byte type = payload.get();
+            if (type == PUT) {
+                String hostname = readField(payload);
+                String osName = readField(payload);
+                String userName = readField(payload);
+                replay.put(new SystemData(hostname, osName, userName));
+            } else if (type == REMOVE) {
+                replay.remove(readField(payload));
+            } else if (type == CLEAR) {
+                replay.clear();
+            }
+            region.position(region.position() + length);
+        }
+        return region.position();
+    }
+
+    private static void putField(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String readField(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "Values are limited to " + Short.MAX_VALUE + " bytes in the inventory log");
+        }
+        return bytes;
+    }
+
+    /**
+     * Throws the failure of an earlier write or sync, if there was one.
+     */
+    void checkFailure() throws IOException {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new IOException("The inventory log failed earlier", failed);
+        }
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(segmentPath(directory, number), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void reserve(int length) {
+        if (pending.remaining() < length) {
+            ByteBuffer larger = ByteBuffer.allocate(
+                Math.max(pending.capacity() * 2, pending.position() + length));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+
+    // Writes the appended records and forces them to disk, returning the
+    // sequence number of the last one
+    private long flush() throws IOException {
+        fileLock.lock();
+        try {
+            checkFailure();
+            ByteBuffer batch;
+            long last;
+            appendLock.lock();
+            try {
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                last = appended;
+            } finally {
+                appendLock.unlock();
+            }
+            batch.flip();
+            try {
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                fail(e);
+                throw e;
+            }
+            syncedBytes += batch.limit();
+            batch.clear();
+            return last;
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    // Called with the file lock held
+    private void fail(IOException e) {
+        failure = e;
+        try {
+            channel.truncate(syncedBytes);
+        } catch (IOException truncateFailed) {
+            e.addSuppressed(truncateFailed);
+        }
+        // Wakes the waiters so that they see the failure
+        markDurable(-1);
+    }
+
+    private void markDurable(long written) {
+        syncLock.lock();
+        try {
+            durable = Math.max(durable, written);
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+}
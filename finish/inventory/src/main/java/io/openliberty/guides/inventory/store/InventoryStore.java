@@ -0,0 +1,100 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import io.openliberty.guides.inventory.model.SystemData;
+
+/**
+ * Storage for the systems in the inventory, keyed by hostname. Every
+ * method may be called concurrently. Iteration is weakly consistent: it
+ * never fails because of concurrent changes, but it may or may not see
+ * them.
+ */
+public interface InventoryStore {
+
+    /**
+     * Adds the system, or replaces the system with the same hostname.
+     * @return true if the hostname was not in the store.
+     */
+    boolean put(SystemData system);
+
+    /**
+     * Adds or replaces every system, as a single change where the store
+     * can apply one.
+     * @return the number of hostnames that were not in the store.
+     */
+    default int putAll(Collection<SystemData> systems) {
+        int added = 0;
+        for (SystemData system : systems) {
+            if (put(system)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @return the system with this hostname, or null if there is none.
+     */
+    SystemData get(String hostname);
+
+    /**
+     * Replaces the system with the same hostname, if there is one.
+     * @return true if the system was replaced.
+     */
+    boolean replace(SystemData system);
+
+    /**
+     * @return true if the hostname was in the store.
+     */
+    boolean remove(String hostname);
+
+    /**
+     * Returns up to limit systems in hostname order, starting after the
+     * given hostname.
+     * @param after
+     *          - hostname to start after, or null to start from the first.
+     */
+    List<SystemData> page(String after, int limit);
+
+    /**
+     * Iterates over all the systems in hostname order.
+     */
+    Iterator<SystemData> iterator();
+
+    /**
+     * Returns the number of systems without scanning the store.
+     */
+    int size();
+
+    /**
+     * Returns the number of systems by OS family, kept up to date by the
+     * store.
+     */
+    OsFamilyCounts osFamilyCounts();
+
+    /**
+     * Removes every system.
+     * @return the number of systems removed.
+     */
+    int clear();
+
+    /**
+     * Releases the memory held by the store.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,629 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import io.openliberty.guides.inventory.model.SystemData;
+
+/**
+ * Keeps the systems in direct memory, outside of the Java heap, so that
+ * the garbage collector does not have to trace millions of long-lived
+ * objects. Records are appended to fixed-size chunks and found through an
+ * open-addressing hash index on the hostname, which is also held in direct
+ * memory. A SystemData is only decoded when a record is read.
+ *
+ * <p>Records are never changed once written. An update appends a new
+ * record, and the space of replaced records is reclaimed by copying the
+ * live ones to new chunks once more than half of the space is garbage.
+ * Readers therefore keep a consistent view of the records they have found
+ * without holding the lock while decoding them.
+ *
+ * <p>The hostname order is kept as a sorted array of index slots, which do
+ * not change when a host is updated. Hosts added since the last ordered
+ * read are sorted and merged in by the next one. Hostnames are ordered by
+ * their UTF-8 bytes, which is the same as String order for ASCII
+ * hostnames.
+ */
+public class OffHeapInventoryStore implements InventoryStore {
+
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final int MAX_FIELD_LENGTH = Short.MAX_VALUE;
+    // Hosts decoded at a time by an iterator
+    static final int PAGE = 256;
+
+    // An index slot holds a removed flag, 23 bits of the hostname hash, to
+    // skip most records that do not match without reading them, and the
+    // record address plus one, so that zero marks an empty slot. A removed
+    // host keeps its slot, and its place in the hostname order, until the
+    // index is rebuilt.
+    private static final int ADDRESS_BITS = 40;
+    private static final long ADDRESS_MASK = (1L << ADDRESS_BITS) - 1;
+    private static final long TAG_MASK = 0x7FFFFFL;
+    private static final long REMOVED = 1L << 63;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int chunkSize;
+
+    // Replaced rather than changed when a chunk is added, so readers can
+    // keep the array they started with
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private ByteBuffer writer;
+    private LongBuffer index;
+    private int mask;
+    // Written under the write lock, read without it
+    private volatile int size;
+    private final OsFamilyCounts osFamilyCounts = new OsFamilyCounts();
+    // Slots in use, including removed hosts
+    private int occupied;
+    private long usedBytes;
+    private long liveBytes;
+
+    // Slots in hostname order, and slots added since they were sorted
+    private int[] sorted = new int[0];
+    private int[] added = new int[16];
+    private int addedCount;
+    private boolean resorting;
+
+    public OffHeapInventoryStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public OffHeapInventoryStore(int chunkSize) {
+        this.chunkSize = chunkSize;
+        this.index = newIndex(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public boolean put(SystemData system) {
+        return put(system, false);
+    }
+
+    @Override
+    public boolean replace(SystemData system) {
+        return put(system, true);
+    }
+
+    private boolean put(SystemData system, boolean onlyIfPresent) {
+        String hostname = system.getHostname();
+        byte[] host = encode(hostname);
+        byte[] os = encode(system.getOsName());
+        byte[] user = encode(system.getUserName());
+        int hash = hostname.hashCode();
+        lock.writeLock().lock();
+        try {
+            int slot = find(hash, host);
+            long existing = index.get(slot);
+            if (onlyIfPresent && (existing == 0 || removed(existing))) {
+                return false;
+            }
+            int family = OsFamilyCounts.family(system.getOsName());
+            if (existing != 0 && !removed(existing)) {
+                osFamilyCounts.replaced(osFamily(address(existing)), family);
+            } else {
+                osFamilyCounts.added(family);
+            }
+            long address = append(hash, host, os, user);
+            index.put(slot, entry(hash, address));
+            liveBytes += recordLength(host, os, user);
+            if (existing != 0 && !removed(existing)) {
+                liveBytes -= recordLength(address(existing));
+                compactIfWasteful();
+                return onlyIfPresent;
+            }
+            size++;
+            if (existing != 0) {
+                // Back in the slot it had, which is already in order
+                return true;
+            }
+            if (++occupied * 2 > index.capacity()) {
+                rebuild(size * 4 > index.capacity() ? index.capacity() * 2 : index.capacity());
+            } else if (!resorting) {
+                if (addedCount == added.length) {
+                    added = Arrays.copyOf(added, addedCount * 2);
+                }
+                added[addedCount++] = slot;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public SystemData get(String hostname) {
+        byte[] host = encode(hostname);
+        ByteBuffer[] view;
+        long address;
+        lock.readLock().lock();
+        try {
+            long entry = index.get(find(hostname.hashCode(), host));
+            if (entry == 0 || removed(entry)) {
+                return null;
+            }
+            view = view();
+            address = address(entry);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return decode(view, address);
+    }
+
+    @Override
+    public boolean remove(String hostname) {
+        byte[] host = encode(hostname);
+        lock.writeLock().lock();
+        try {
+            int slot = find(hostname.hashCode(), host);
+            long entry = index.get(slot);
+            if (entry == 0 || removed(entry)) {
+                return false;
+            }
+            index.put(slot, entry | REMOVED);
+            size--;
+            osFamilyCounts.removed(osFamily(address(entry)));
+            liveBytes -= recordLength(address(entry));
+            compactIfWasteful();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SystemData> page(String after, int limit) {
+        byte[] start = after == null ? null : encode(after);
+        ByteBuffer[] view;
+        long[] addresses;
+        lockSorted();
+        try {
+            view = view();
+            int first = 0;
+            if (start != null) {
+                // Binary search for the first hostname after start
+                int high = sorted.length;
+                while (first < high) {
+                    int middle = (first + high) >>> 1;
+                    if (compareHost(view, address(index.get(sorted[middle])), start) <= 0) {
+                        first = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+            }
+            addresses = addresses(first, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<SystemData> page = new ArrayList<>(addresses.length);
+        for (long address : addresses) {
+            page.add(decode(view, address));
+        }
+        return page;
+    }
+
+    /**
+     * Iterates in pages of {@value #PAGE} hosts, each taken as a
+     * {@link #page} after the last host of the previous one, so iterating
+     * never copies the whole order. Changes made while iterating are seen
+     * from the next page on, and a host is never returned twice.
+     */
+    @Override
+    public Iterator<SystemData> iterator() {
+        return new Iterator<SystemData>() {
+
+            private List<SystemData> page = page(null, PAGE);
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == page.size() && page.size() == PAGE) {
+                    page = page(page.get(PAGE - 1).getHostname(), PAGE);
+                    next = 0;
+                }
+                return next < page.size();
+            }
+
+            @Override
+            public SystemData next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(next++);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public OsFamilyCounts osFamilyCounts() {
+        return osFamilyCounts;
+    }
+
+    @Override
+    public int clear() {
+        lock.writeLock().lock();
+        try {
+            int removed = size;
+            reset();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Direct memory is returned when the buffers are garbage collected.
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Returns the direct memory reserved for records and the index.
+     */
+    public long reservedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) chunks.length * chunkSize + index.capacity() * Long.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Takes the read lock with every slot in hostname order
+    private void lockSorted() {
+        lock.readLock().lock();
+        if (addedCount == 0 && !resorting) {
+            return;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (resorting) {
+                sorted = new int[occupied];
+                int next = 0;
+                for (int slot = 0; slot < index.capacity(); slot++) {
+                    if (index.get(slot) != 0) {
+                        sorted[next++] = slot;
+                    }
+                }
+                sort(sorted, new int[occupied], 0, occupied);
+            } else if (addedCount > 0) {
+                sort(added, new int[addedCount], 0, addedCount);
+                sorted = merge(sorted, added, addedCount);
+            }
+            resorting = false;
+            addedCount = 0;
+            // Downgrades to the read lock
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns up to limit hosts in order from the given position, skipping
+    // removed hosts
+    private long[] addresses(int from, int limit) {
+        long[] addresses = new long[Math.min(limit, size)];
+        int count = 0;
+        for (int i = from; i < sorted.length && count < addresses.length; i++) {
+            long entry = index.get(sorted[i]);
+            if (!removed(entry)) {
+                addresses[count++] = address(entry);
+            }
+        }
+        return count == addresses.length ? addresses : Arrays.copyOf(addresses, count);
+    }
+
+    private void reset() {
+        sorted = new int[0];
+        addedCount = 0;
+        resorting = false;
+        chunks = new ByteBuffer[0];
+        writer = null;
+        index = newIndex(INITIAL_CAPACITY);
+        size = 0;
+        osFamilyCounts.reset();
+        occupied = 0;
+        usedBytes = 0;
+        liveBytes = 0;
+    }
+
+    private LongBuffer newIndex(int capacity) {
+        mask = capacity - 1;
+        return ByteBuffer.allocateDirect(capacity * Long.BYTES).asLongBuffer();
+    }
+
+    // Returns the slot holding the hostname, or the empty slot to put it in
+    private int find(int hash, byte[] host) {
+        ByteBuffer[] view = view();
+        long tag = tag(hash);
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            long entry = index.get(slot);
+            if (entry == 0 || (((entry >>> ADDRESS_BITS) & TAG_MASK) == tag
+                               && compareHost(view, address(entry), host) == 0)) {
+                return slot;
+            }
+        }
+    }
+
+    // Rebuilds the index without the removed hosts, moving the records to
+    // new chunks when compacting
+    private void rebuild(int capacity) {
+        rebuild(capacity, false);
+    }
+
+    private void rebuild(int capacity, boolean compact) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("The off-heap inventory store is full");
+        }
+        LongBuffer old = index;
+        ByteBuffer[] view = view();
+        index = newIndex(capacity);
+        occupied = 0;
+        // Every host moves to a new slot
+        resorting = true;
+        addedCount = 0;
+        if (compact) {
+            chunks = new ByteBuffer[0];
+            writer = null;
+            usedBytes = 0;
+        }
+        for (int i = 0; i < old.capacity(); i++) {
+            long entry = old.get(i);
+            if (entry == 0 || removed(entry)) {
+                continue;
+            }
+            long address = address(entry);
+            if (compact) {
+                ByteBuffer record = view[chunk(address)].duplicate();
+                record.position(offset(address));
+                record.limit(offset(address) + recordLength(address, view));
+                long moved = reserve(record.remaining());
+                writer.put(record);
+                entry = (entry & ~ADDRESS_MASK) | (moved + 1);
+            }
+            int slot = spread(view[chunk(address)].getInt(offset(address)));
+            for (slot &= mask; index.get(slot) != 0; slot = (slot + 1) & mask) {
+            }
+            index.put(slot, entry);
+            occupied++;
+        }
+    }
+
+    private void compactIfWasteful() {
+        long garbage = usedBytes - liveBytes;
+        if (garbage > liveBytes && garbage >= chunkSize) {
+            rebuild(index.capacity(), true);
+        }
+    }
+
+    private long append(int hash, byte[] host, byte[] os, byte[] user) {
+        long address = reserve(recordLength(host, os, user));
+        writer.putInt(hash);
+        putField(host);
+        putField(os);
+        putField(user);
+        return address;
+    }
+
+    // Moves the writer to a chunk with room for the record
+    private long reserve(int length) {
+        if (writer == null || writer.remaining() < length) {
+            if (writer != null) {
+                usedBytes += writer.remaining();
+            }
+            ByteBuffer chunk = ByteBuffer.allocateDirect(chunkSize);
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = chunk;
+            writer = chunk.duplicate();
+        }
+        usedBytes += length;
+        return (long) (chunks.length - 1) * chunkSize + writer.position();
+    }
+
+    private void putField(byte[] value) {
+        if (value == null) {
+            writer.putShort((short) -1);
+        } else {
+            writer.putShort((short) value.length);
+            writer.put(value);
+        }
+    }
+
+    private ByteBuffer[] view() {
+        return chunks;
+    }
+
+    private SystemData decode(ByteBuffer[] view, long address) {
+        ByteBuffer chunk = view[chunk(address)];
+        int position = offset(address) + Integer.BYTES;
+        String hostname = readField(chunk, position);
+        position += fieldLength(chunk, position);
+        String osName = readField(chunk, position);
+        position += fieldLength(chunk, position);
+        String userName = readField(chunk, position);
+        return new SystemData(hostname, osName, userName);
+    }
+
+    private String readField(ByteBuffer chunk, int position) {
+        short length = chunk.getShort(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        for (int i = 0; i < length; i++) {
+            value[i] = chunk.get(position + Short.BYTES + i);
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private int osFamily(long address) {
+        ByteBuffer chunk = chunks[chunk(address)];
+        int position = offset(address) + Integer.BYTES;
+        return OsFamilyCounts.family(chunk, position + fieldLength(chunk, position));
+    }
+
+    private int fieldLength(ByteBuffer chunk, int position) {
+        return Short.BYTES + Math.max(0, chunk.getShort(position));
+    }
+
+    private int recordLength(long address) {
+        return recordLength(address, view());
+    }
+
+    private int recordLength(long address, ByteBuffer[] view) {
+        ByteBuffer chunk = view[chunk(address)];
+        int position = offset(address) + Integer.BYTES;
+        for (int field = 0; field < 3; field++) {
+            position += fieldLength(chunk, position);
+        }
+        return position - offset(address);
+    }
+
+    private int recordLength(byte[] host, byte[] os, byte[] user) {
+        return Integer.BYTES + 3 * Short.BYTES + host.length
+            + (os == null ? 0 : os.length) + (user == null ? 0 : user.length);
+    }
+
+    private int compareHost(ByteBuffer[] view, long address, byte[] host) {
+        ByteBuffer chunk = view[chunk(address)];
+        int position = offset(address) + Integer.BYTES;
+        int length = chunk.getShort(position);
+        position += Short.BYTES;
+        for (int i = 0; i < Math.min(length, host.length); i++) {
+            int cmp = Byte.toUnsignedInt(chunk.get(position + i))
+                - Byte.toUnsignedInt(host[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - host.length;
+    }
+
+    private int compareHosts(ByteBuffer[] view, long a, ByteBuffer[] otherView, long b) {
+        ByteBuffer chunkA = view[chunk(a)];
+        ByteBuffer chunkB = otherView[chunk(b)];
+        int positionA = offset(a) + Integer.BYTES;
+        int positionB = offset(b) + Integer.BYTES;
+        int lengthA = chunkA.getShort(positionA);
+        int lengthB = chunkB.getShort(positionB);
+        positionA += Short.BYTES;
+        positionB += Short.BYTES;
+        for (int i = 0; i < Math.min(lengthA, lengthB); i++) {
+            int cmp = Byte.toUnsignedInt(chunkA.get(positionA + i))
+                - Byte.toUnsignedInt(chunkB.get(positionB + i));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return lengthA - lengthB;
+    }
+
+    private int compareSlots(int a, int b) {
+        ByteBuffer[] view = view();
+        return compareHosts(view, address(index.get(a)), view, address(index.get(b)));
+    }
+
+    // Merge sort of slots by hostname, without boxing
+    private void sort(int[] slots, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(slots, buffer, from, middle);
+        sort(slots, buffer, middle, to);
+        if (compareSlots(slots[middle - 1], slots[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(slots, from, buffer, from, to - from);
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right >= to || (left < middle && compareSlots(buffer[left], buffer[right]) <= 0)) {
+                slots[i] = buffer[left++];
+            } else {
+                slots[i] = buffer[right++];
+            }
+        }
+    }
+
+    private int[] merge(int[] slots, int[] more, int count) {
+        int[] merged = new int[slots.length + count];
+        for (int i = 0, left = 0, right = 0; i < merged.length; i++) {
+            if (right >= count || (left < slots.length
+                    && compareSlots(slots[left], more[right]) <= 0)) {
+                merged[i] = slots[left++];
+            } else {
+                merged[i] = more[right++];
+            }
+        }
+        return merged;
+    }
+
+    private byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Values are limited to "
+                + MAX_FIELD_LENGTH + " bytes in the off-heap inventory store");
+        }
+        return bytes;
+    }
+
+    private long entry(int hash, long address) {
+        return (tag(hash) << ADDRESS_BITS) | (address + 1);
+    }
+
+    private long tag(int hash) {
+        return (hash >>> 8) & TAG_MASK;
+    }
+
+    private static boolean removed(long entry) {
+        return (entry & REMOVED) != 0;
+    }
+
+    private long address(long entry) {
+        return (entry & ADDRESS_MASK) - 1;
+    }
+
+    private int chunk(long address) {
+        return (int) (address / chunkSize);
+    }
+
+    private int offset(long address) {
+        return (int) (address % chunkSize);
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,117 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of systems in a store by OS family. Stores keep the counts up to
+ * date as systems are added, replaced and removed, so reading them never
+ * scans the store. The families are fixed so the counts can be reported
+ * as metrics without unbounded attribute values.
+ */
+public final class OsFamilyCounts {
+
+    public static final List<String> FAMILIES =
+        List.of("linux", "windows", "macos", "other", "unknown");
+
+    private static final int OTHER = 3;
+    private static final int UNKNOWN = 4;
+
+    // os.name prefixes of the first families
+    private static final String[] PREFIXES = { "Linux", "Windows", "Mac" };
+    private static final byte[][] ENCODED_PREFIXES = new byte[PREFIXES.length][];
+    static {
+        for (int family = 0; family < PREFIXES.length; family++) {
+            ENCODED_PREFIXES[family] = PREFIXES[family].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final LongAdder[] counts = new LongAdder[FAMILIES.size()];
+
+    public OsFamilyCounts() {
+        for (int family = 0; family < counts.length; family++) {
+            counts[family] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the index in FAMILIES of an OS name.
+     */
+    public static int family(String osName) {
+        if (osName == null) {
+            return UNKNOWN;
+        }
+        for (int family = 0; family < PREFIXES.length; family++) {
+            if (osName.startsWith(PREFIXES[family])) {
+                return family;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Returns the family of an OS name encoded as a length, -1 for null,
+     * followed by UTF-8 bytes, without decoding it.
+     */
+    static int family(ByteBuffer chunk, int position) {
+        int length = chunk.getShort(position);
+        if (length < 0) {
+            return UNKNOWN;
+        }
+        int start = position + Short.BYTES;
+        for (int family = 0; family < ENCODED_PREFIXES.length; family++) {
+            byte[] prefix = ENCODED_PREFIXES[family];
+            if (length >= prefix.length && startsWith(chunk, start, prefix)) {
+                return family;
+            }
+        }
+        return OTHER;
+    }
+
+    private static boolean startsWith(ByteBuffer chunk, int start, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (chunk.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long count(int family) {
+        return counts[family].sum();
+    }
+
+    void added(int family) {
+        counts[family].increment();
+    }
+
+    void removed(int family) {
+        counts[family].decrement();
+    }
+
+    void replaced(int from, int to) {
+        if (from != to) {
+            counts[from].decrement();
+            counts[to].increment();
+        }
+    }
+
+    void reset() {
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+    }
+}
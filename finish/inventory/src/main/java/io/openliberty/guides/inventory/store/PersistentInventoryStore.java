@@ -0,0 +1,394 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.openliberty.guides.inventory.model.SystemData;
+
+/**
+ * Makes another store durable. Every change is applied to the store and
+ * appended to an {@link InventoryLog} in the same order, and put() and
+ * clear() return once the change is on disk. putAll() appends every system
+ * before it waits, so a batch is made durable by one sync. When the current log segment
+ * grows past a threshold, a compacted snapshot of the store is written in
+ * the background and the segments it covers are deleted.
+ *
+ * <p>When the log fails, the change that found the failure throws, and the
+ * store is rebuilt from what is on disk so that it no longer shows changes
+ * that were not made durable. Every later change throws.
+ *
+ * <p>On startup the store is rebuilt from the memory-mapped snapshot and
+ * then the log segments written since it was started. The snapshot is
+ * taken while changes continue, so it may already contain some of those
+ * changes. Replaying them again leaves the same result, because a put
+ * replaces the host and a remove or clear only removes.
+ */
+public class PersistentInventoryStore implements InventoryStore {
+
+    private static final Logger logger =
+        Logger.getLogger(PersistentInventoryStore.class.getName());
+
+    static final String SNAPSHOT = "snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x494e5653;
+    private static final int SNAPSHOT_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    private final Path directory;
+    private final InventoryStore systems;
+    private final long snapshotBytes;
+    private final Executor executor;
+    private final InventoryLog log;
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final AtomicBoolean reloaded = new AtomicBoolean();
+
+    /**
+     * Recovers the store from the directory, creating it if needed.
+     * @param systems
+     *          - empty store to load the systems into.
+     * @param snapshotBytes
+     *          - size of the log segment that triggers a snapshot.
+     * @param executor
+     *          - runs the snapshots.
+     */
+    public PersistentInventoryStore(Path directory, InventoryStore systems,
+                                    long snapshotBytes, Executor executor)
+                                    throws IOException {
+        this.directory = directory;
+        this.systems = systems;
+        this.snapshotBytes = snapshotBytes;
+        this.executor = executor;
+        Files.createDirectories(directory);
+        this.log = new InventoryLog(directory, recover() + 1);
+    }
+
+    @Override
+    public boolean put(SystemData system) {
+        long sequence;
+        boolean added;
+        log.appendLock().lock();
+        try {
+            checkLog();
+            sequence = log.appendPut(system);
+            added = systems.put(system);
+        } finally {
+            log.appendLock().unlock();
+        }
+        awaitDurable(sequence);
+        return added;
+    }
+
+    @Override
+    public int putAll(Collection<SystemData> batch) {
+        long sequence = 0;
+        int added = 0;
+        log.appendLock().lock();
+        try {
+            checkLog();
+            for (SystemData system : batch) {
+                sequence = log.appendPut(system);
+                if (systems.put(system)) {
+                    added++;
+                }
+            }
+        } finally {
+            log.appendLock().unlock();
+        }
+        if (sequence > 0) {
+            awaitDurable(sequence);
+        }
+        return added;
+    }
+
+    @Override
+    public SystemData get(String hostname) {
+        return systems.get(hostname);
+    }
+
+    @Override
+    public boolean replace(SystemData system) {
+        long sequence;
+        log.appendLock().lock();
+        try {
+            checkLog();
+            if (!systems.replace(system)) {
+                return false;
+            }
+            sequence = log.appendPut(system);
+        } finally {
+            log.appendLock().unlock();
+        }
+        awaitDurable(sequence);
+        return true;
+    }
+
+    @Override
+    public boolean remove(String hostname) {
+        long sequence;
+        boolean removed;
+        log.appendLock().lock();
+        try {
+            checkLog();
+            sequence = log.appendRemove(hostname);
+            removed = systems.remove(hostname);
+        } finally {
+            log.appendLock().unlock();
+        }
+        awaitDurable(sequence);
+        return removed;
+    }
+
+    @Override
+    public List<SystemData> page(String after, int limit) {
+        return systems.page(after, limit);
+    }
+
+    @Override
+    public Iterator<SystemData> iterator() {
+        return systems.iterator();
+    }
+
+    @Override
+    public int size() {
+        return systems.size();
+    }
+
+    @Override
+    public OsFamilyCounts osFamilyCounts() {
+        return systems.osFamilyCounts();
+    }
+
+    @Override
+    public int clear() {
+        long sequence;
+        int removed;
+        log.appendLock().lock();
+        try {
+            checkLog();
+            sequence = log.appendClear();
+            removed = systems.clear();
+        } finally {
+            log.appendLock().unlock();
+        }
+        awaitDurable(sequence);
+        return removed;
+    }
+
+    @Override
+    public void close() {
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Cannot close the inventory log", e);
+        }
+        systems.close();
+    }
+
+    InventoryLog log() {
+        return log;
+    }
+
+    /**
+     * Writes a snapshot of the store and deletes the log segments it
+     * replaces.
+     */
+    public void snapshot() throws IOException {
+        long first = log.rotate();
+        Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024);
+            buffer.putInt(SNAPSHOT_MAGIC);
+            buffer.putLong(first);
+            // The records use the log format
+            Iterator<SystemData> iterator = systems.iterator();
+            while (iterator.hasNext()) {
+                SystemData system = iterator.next();
+                byte[] host = InventoryLog.utf8(system.getHostname());
+                byte[] os = InventoryLog.utf8(system.getOsName());
+                byte[] user = InventoryLog.utf8(system.getUserName());
+                if (buffer.remaining() < InventoryLog.recordBytes(host, os, user)) {
+                    write(out, buffer);
+                }
+                InventoryLog.writePut(buffer, host, os, user);
+            }
+            write(out, buffer);
+            out.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT),
+                   StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        for (long segment : segments()) {
+            if (segment < first) {
+                Files.deleteIfExists(InventoryLog.segmentPath(directory, segment));
+            }
+        }
+    }
+
+    // Returns the number of the last segment replayed
+    private long recover() throws IOException {
+        long start = System.nanoTime();
+        InventoryLog.Replay replay = new InventoryLog.Replay() {
+
+            @Override
+            public void put(SystemData system) {
+                systems.put(system);
+            }
+
+            @Override
+            public void remove(String hostname) {
+                systems.remove(hostname);
+            }
+
+            @Override
+            public void clear() {
+                systems.clear();
+            }
+        };
+        long first = 0;
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            first = readSnapshotHeader(snapshot);
+            InventoryLog.read(snapshot, SNAPSHOT_HEADER_BYTES, replay);
+        }
+        long last = first;
+        for (long segment : segments()) {
+            Path file = InventoryLog.segmentPath(directory, segment);
+            if (segment < first) {
+                // Already covered by the snapshot
+                Files.deleteIfExists(file);
+                continue;
+            }
+            long end = InventoryLog.read(file, 0, replay);
+            if (end < Files.size(file)) {
+                // Drops a change that was cut off before it was on disk
+                logger.log(Level.WARNING, "Truncating {0} after {1} bytes",
+                    new Object[] { file, end });
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                    channel.force(true);
+                }
+            }
+            last = segment;
+        }
+        logger.log(Level.INFO, "Recovered {0} systems from {1} in {2} ms",
+            new Object[] { systems.size(), directory, (System.nanoTime() - start) / 1_000_000 });
+        return last;
+    }
+
+    private long readSnapshotHeader(Path snapshot) throws IOException {
+        try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES);
+            while (header.hasRemaining() && in.read(header) >= 0) {
+            }
+            header.flip();
+            if (header.remaining() < SNAPSHOT_HEADER_BYTES || header.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException(snapshot + " is not an inventory snapshot");
+            }
+            return header.getLong();
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "log-*")) {
+            for (Path file : files) {
+                try {
+                    segments.add(Long.parseLong(file.getFileName().toString().substring(4)));
+                } catch (NumberFormatException e) {
+                    logger.log(Level.WARNING, "Ignoring {0}", file);
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    // Called with the append lock held, before a change is applied
+    private void checkLog() {
+        try {
+            log.checkFailure();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write the inventory log", e);
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        try {
+            log.awaitDurable(sequence);
+        } catch (IOException e) {
+            reload();
+            throw new UncheckedIOException("Cannot write the inventory log", e);
+        }
+        if (log.segmentBytes() > snapshotBytes && snapshotting.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    snapshot();
+                } catch (IOException | RuntimeException e) {
+                    logger.log(Level.SEVERE, "Cannot write an inventory snapshot", e);
+                } finally {
+                    snapshotting.set(false);
+                }
+            });
+        }
+    }
+
+    // Replaces the changes that the failed log did not make durable with
+    // what is on disk, once
+    private void reload() {
+        if (!reloaded.compareAndSet(false, true)) {
+            return;
+        }
+        log.appendLock().lock();
+        try {
+            systems.clear();
+            recover();
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.SEVERE, "Cannot reload the inventory from " + directory, e);
+        } finally {
+            log.appendLock().unlock();
+        }
+    }
+
+    private void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Makes the rename durable, where the platform allows it
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Cannot sync {0}", directory);
+        }
+    }
+}
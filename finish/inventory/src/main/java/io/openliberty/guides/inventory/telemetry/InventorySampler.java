@@ -0,0 +1,155 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.telemetry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+/**
+ * Parent-based ratio sampler with per-endpoint ratios. A span with a
+ * sampled parent is sampled. A trace that starts here is sampled with the
+ * ratio of the matching endpoint rule, or the default ratio. A rule is
+ * keyed by a path prefix, a method and a path prefix, or a span name, and
+ * the longest matching key wins.
+ *
+ * When recordUnsampled is true, spans that are not sampled are still
+ * recorded, so that {@link TailSamplingSpanProcessor} can keep the traces
+ * that turn out to fail or to be slow. Otherwise they are dropped.
+ */
+public final class InventorySampler implements Sampler {
+
+    private static final AttributeKey<String> URL_PATH = AttributeKey.stringKey("url.path");
+    private static final AttributeKey<String> HTTP_TARGET = AttributeKey.stringKey("http.target");
+    private static final AttributeKey<String> HTTP_METHOD =
+        AttributeKey.stringKey("http.request.method");
+    private static final AttributeKey<String> LEGACY_HTTP_METHOD =
+        AttributeKey.stringKey("http.method");
+
+    private final Sampler defaultSampler;
+    private final List<Rule> rules = new ArrayList<>();
+    private final SamplingResult unsampled;
+    private final String description;
+
+    /**
+     * @param ratio
+     *          - fraction of the traces started here that are sampled.
+     * @param endpoints
+     *          - ratios by path prefix, "METHOD /path" prefix, or span name.
+     * @param recordUnsampled
+     *          - whether spans that are not sampled are still recorded.
+     */
+    public InventorySampler(double ratio, Map<String, String> endpoints,
+                            boolean recordUnsampled) {
+        this.defaultSampler = Sampler.traceIdRatioBased(ratio);
+        for (Map.Entry<String, String> endpoint : endpoints.entrySet()) {
+            rules.add(new Rule(endpoint.getKey().trim(),
+                Double.parseDouble(endpoint.getValue().trim())));
+        }
+        rules.sort(Comparator.comparingInt((Rule rule) -> rule.key.length()).reversed());
+        this.unsampled = recordUnsampled ? SamplingResult.recordOnly() : SamplingResult.drop();
+        this.description = "InventorySampler{ratio=" + ratio + ", endpoints=" + endpoints
+            + ", recordUnsampled=" + recordUnsampled + "}";
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId,
+            String name, SpanKind spanKind, Attributes attributes,
+            List<LinkData> parentLinks) {
+        Span parent = Span.fromContext(parentContext);
+        SpanContext parentSpanContext = parent.getSpanContext();
+        if (parentSpanContext.isValid()) {
+            if (parentSpanContext.isSampled()) {
+                return SamplingResult.recordAndSample();
+            }
+            // Children of a local span that was dropped are dropped too
+            return parentSpanContext.isRemote() || parent.isRecording()
+                ? unsampled : SamplingResult.drop();
+        }
+        SamplingResult result = sampler(name, attributes).shouldSample(parentContext,
+            traceId, name, spanKind, attributes, parentLinks);
+        return result.getDecision() == SamplingDecision.RECORD_AND_SAMPLE
+            ? result : unsampled;
+    }
+
+    private Sampler sampler(String name, Attributes attributes) {
+        if (rules.isEmpty()) {
+            return defaultSampler;
+        }
+        String path = attributes.get(URL_PATH);
+        if (path == null) {
+            path = attributes.get(HTTP_TARGET);
+        }
+        String method = attributes.get(HTTP_METHOD);
+        if (method == null) {
+            method = attributes.get(LEGACY_HTTP_METHOD);
+        }
+        for (Rule rule : rules) {
+            if (rule.matches(name, method, path)) {
+                return rule.sampler;
+            }
+        }
+        return defaultSampler;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    private static class Rule {
+
+        private final String key;
+        private final String method;
+        private final String path;
+        private final Sampler sampler;
+
+        Rule(String key, double ratio) {
+            this.key = key;
+            int slash = key.indexOf('/');
+            if (slash < 0) {
+                this.method = null;
+                this.path = null;
+            } else {
+                String prefix = key.substring(0, slash).trim();
+                this.method = prefix.isEmpty() ? null : prefix;
+                this.path = key.substring(slash);
+            }
+            this.sampler = Sampler.traceIdRatioBased(ratio);
+        }
+
+        boolean matches(String name, String spanMethod, String spanPath) {
+            if (path == null) {
+                return key.equals(name);
+            }
+            return spanPath != null && spanPath.startsWith(path)
+                && (method == null || method.equalsIgnoreCase(spanMethod));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.telemetry;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.traces.ConfigurableSamplerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+/**
+ * Provides {@link InventorySampler} as otel.traces.sampler=inventory, or
+ * through {@link TailSamplingCustomizer} in place of any other sampler. The
+ * default ratio is otel.traces.sampler.arg, and
+ * otel.inventory.sampler.endpoints overrides it for some endpoints, for
+ * example "GET /inventory/systems=0.01,RefreshCycle=0".
+ */
+public class InventorySamplerProvider implements ConfigurableSamplerProvider {
+
+    public static final String NAME = "inventory";
+
+    static final String ENABLED = "otel.inventory.sampler.enabled";
+    static final String ENDPOINTS = "otel.inventory.sampler.endpoints";
+    static final String KEEP_ERRORS = "otel.inventory.sampler.keepErrors";
+    static final String SLOW_THRESHOLD = "otel.inventory.sampler.slowThreshold";
+    static final String MAX_BUFFERED_SPANS = "otel.inventory.sampler.maxBufferedSpans";
+    static final String TRACE_TIMEOUT = "otel.inventory.sampler.traceTimeout";
+
+    static final Duration DEFAULT_SLOW_THRESHOLD = Duration.ofSeconds(1);
+    static final Duration DEFAULT_TRACE_TIMEOUT = Duration.ofSeconds(30);
+
+    @Override
+    public Sampler createSampler(ConfigProperties config) {
+        return new InventorySampler(config.getDouble("otel.traces.sampler.arg", 1.0),
+            config.getMap(ENDPOINTS, Collections.emptyMap()), keepsTraces(config));
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    static boolean selected(ConfigProperties config) {
+        return NAME.equals(config.getString("otel.traces.sampler"))
+            || config.getBoolean(ENABLED, true);
+    }
+
+    // Unsampled spans are only recorded when some of them may be kept
+    static boolean keepsTraces(ConfigProperties config) {
+        return config.getBoolean(KEEP_ERRORS, true)
+            || !config.getDuration(SLOW_THRESHOLD, DEFAULT_SLOW_THRESHOLD).isZero();
+    }
+}
@@ -0,0 +1,55 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.telemetry;
+
+import io.opentelemetry.sdk.autoconfigure.spi.AutoConfigurationCustomizer;
+import io.opentelemetry.sdk.autoconfigure.spi.AutoConfigurationCustomizerProvider;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+/**
+ * Replaces the configured sampler with the inventory sampler unless
+ * otel.inventory.sampler.enabled is false, so that installing the telemetry
+ * jar is enough to use it. Then puts a {@link TailSamplingSpanProcessor} in
+ * front of each span processor when the inventory sampler keeps failed or
+ * slow traces.
+ */
+public class TailSamplingCustomizer implements AutoConfigurationCustomizerProvider {
+
+    @Override
+    public void customize(AutoConfigurationCustomizer customizer) {
+        customizer.addSamplerCustomizer(TailSamplingCustomizer::customize);
+        customizer.addSpanProcessorCustomizer(TailSamplingCustomizer::customize);
+    }
+
+    static Sampler customize(Sampler sampler, ConfigProperties config) {
+        if (sampler instanceof InventorySampler || !InventorySamplerProvider.selected(config)) {
+            return sampler;
+        }
+        return new InventorySamplerProvider().createSampler(config);
+    }
+
+    static SpanProcessor customize(SpanProcessor processor, ConfigProperties config) {
+        if (!InventorySamplerProvider.selected(config)
+            || !InventorySamplerProvider.keepsTraces(config)) {
+            return processor;
+        }
+        return new TailSamplingSpanProcessor(processor,
+            config.getBoolean(InventorySamplerProvider.KEEP_ERRORS, true),
+            config.getDuration(InventorySamplerProvider.SLOW_THRESHOLD,
+                InventorySamplerProvider.DEFAULT_SLOW_THRESHOLD).toNanos(),
+            config.getInt(InventorySamplerProvider.MAX_BUFFERED_SPANS, 10_000),
+            config.getDuration(InventorySamplerProvider.TRACE_TIMEOUT,
+                InventorySamplerProvider.DEFAULT_TRACE_TIMEOUT).toNanos());
+    }
+}
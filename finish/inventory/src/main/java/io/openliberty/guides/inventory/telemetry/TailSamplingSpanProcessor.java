@@ -0,0 +1,303 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.telemetry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.common.InstrumentationLibraryInfo;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.DelegatingSpanData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+/**
+ * Keeps the traces that fail or are slow even when the sampler did not
+ * sample them. Sampled spans go straight to the delegate, usually the
+ * batch processor of the exporter. The recorded but unsampled spans of a
+ * trace are held until its local root span ends. If any of them failed, or
+ * the root took at least the slow threshold, they are all passed to the
+ * delegate as sampled spans. Otherwise they are dropped.
+ *
+ * A span failed when it has the error.type attribute or the error status.
+ * The attribute is read from the span directly. The status can only be
+ * read from SpanData, which an ended span builds without copying its
+ * attributes or events, so it is only built when the attribute is absent.
+ *
+ * At most maxBufferedSpans spans are held, and the decisions of as many
+ * recent roots are remembered. A span that ends after its root is exported
+ * right away if the trace was kept or the span failed, and dropped
+ * otherwise. Traces whose root never ends are dropped after the trace
+ * timeout.
+ */
+public final class TailSamplingSpanProcessor implements SpanProcessor {
+
+    static final AttributeKey<String> ERROR_TYPE = AttributeKey.stringKey("error.type");
+
+    private final SpanProcessor delegate;
+    private final boolean keepErrors;
+    private final long slowNanos;
+    private final int maxBufferedSpans;
+    private final long traceTimeoutNanos;
+
+    private final Map<String, Trace> traces = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferedSpans = new AtomicInteger();
+
+    // Whether the traces whose root ended recently were kept, oldest first
+    private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+    private final Queue<String> decided = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger decidedTraces = new AtomicInteger();
+
+    /**
+     * @param slowNanos
+     *          - latency of the root span from which a trace is kept, or 0
+     *            to keep no trace for being slow.
+     */
+    public TailSamplingSpanProcessor(SpanProcessor delegate, boolean keepErrors,
+                                     long slowNanos, int maxBufferedSpans,
+                                     long traceTimeoutNanos) {
+        this.delegate = delegate;
+        this.keepErrors = keepErrors;
+        this.slowNanos = slowNanos;
+        this.maxBufferedSpans = maxBufferedSpans;
+        this.traceTimeoutNanos = traceTimeoutNanos;
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        delegate.onStart(parentContext, span);
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return delegate.isStartRequired();
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (span.getSpanContext().isSampled()) {
+            delegate.onEnd(span);
+            return;
+        }
+        boolean failed = keepErrors && failed(span);
+        SpanContext parent = span.getParentSpanContext();
+        String traceId = span.getSpanContext().getTraceId();
+        if (parent.isValid() && !parent.isRemote()) {
+            hold(traceId, span, failed);
+            return;
+        }
+        boolean keep = failed || slowNanos > 0 && span.getLatencyNanos() >= slowNanos;
+        Trace trace = traces.computeIfAbsent(traceId, id -> new Trace(System.nanoTime()));
+        synchronized (trace) {
+            keep |= trace.failed;
+            // Decided before the trace is closed, so a span that finds it
+            // closed also finds the decision
+            decide(traceId, keep);
+            trace.close();
+        }
+        traces.remove(traceId, trace);
+        if (keep) {
+            for (ReadableSpan held : trace.spans) {
+                delegate.onEnd(new KeptSpan(held));
+            }
+            delegate.onEnd(new KeptSpan(span));
+        }
+    }
+
+    private static boolean failed(ReadableSpan span) {
+        return span.getAttribute(ERROR_TYPE) != null
+            || span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR;
+    }
+
+    private void hold(String traceId, ReadableSpan span, boolean failed) {
+        if (bufferedSpans.get() >= maxBufferedSpans && !purge()) {
+            return;
+        }
+        while (true) {
+            Trace trace = traces.computeIfAbsent(traceId, id -> new Trace(System.nanoTime()));
+            Boolean kept = null;
+            synchronized (trace) {
+                if (!trace.closed) {
+                    kept = decisions.get(traceId);
+                    if (kept == null) {
+                        trace.spans.add(span);
+                        trace.failed |= failed;
+                        bufferedSpans.incrementAndGet();
+                        return;
+                    }
+                    // Created after the root ended, so it is never closed by it
+                    trace.close();
+                }
+            }
+            // A trace closed by its root or by a purge is replaced
+            traces.remove(traceId, trace);
+            if (kept != null) {
+                if (kept || failed) {
+                    delegate.onEnd(new KeptSpan(span));
+                }
+                return;
+            }
+        }
+    }
+
+    // Remembers whether a trace was kept, forgetting the oldest decisions
+    private void decide(String traceId, boolean keep) {
+        if (decisions.put(traceId, keep) != null) {
+            return;
+        }
+        decided.add(traceId);
+        if (decidedTraces.incrementAndGet() > maxBufferedSpans) {
+            String oldest = decided.poll();
+            if (oldest != null) {
+                decisions.remove(oldest);
+                decidedTraces.decrementAndGet();
+            }
+        }
+    }
+
+    // Drops the traces whose root has not ended within the timeout
+    private synchronized boolean purge() {
+        long now = System.nanoTime();
+        traces.values().removeIf(trace -> {
+            if (now - trace.started < traceTimeoutNanos) {
+                return false;
+            }
+            trace.close();
+            return true;
+        });
+        return bufferedSpans.get() < maxBufferedSpans;
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        traces.clear();
+        decisions.clear();
+        decided.clear();
+        return delegate.shutdown();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+
+    private class Trace {
+
+        private final long started;
+        private final List<ReadableSpan> spans = new ArrayList<>();
+        private boolean failed;
+        private boolean closed;
+
+        Trace(long started) {
+            this.started = started;
+        }
+
+        // Stops holding spans, which are then only read by the closing thread
+        synchronized void close() {
+            if (!closed) {
+                closed = true;
+                bufferedSpans.addAndGet(-spans.size());
+            }
+        }
+    }
+
+    /**
+     * An ended span that is exported as sampled.
+     */
+    private static class KeptSpan implements ReadableSpan {
+
+        private final ReadableSpan span;
+        private final SpanContext spanContext;
+
+        KeptSpan(ReadableSpan span) {
+            this.span = span;
+            SpanContext unsampled = span.getSpanContext();
+            this.spanContext = SpanContext.create(unsampled.getTraceId(),
+                unsampled.getSpanId(), TraceFlags.getSampled(), unsampled.getTraceState());
+        }
+
+        @Override
+        public SpanContext getSpanContext() {
+            return spanContext;
+        }
+
+        @Override
+        public SpanContext getParentSpanContext() {
+            return span.getParentSpanContext();
+        }
+
+        @Override
+        public String getName() {
+            return span.getName();
+        }
+
+        @Override
+        public SpanData toSpanData() {
+            return new DelegatingSpanData(span.toSpanData()) {
+                @Override
+                public SpanContext getSpanContext() {
+                    return spanContext;
+                }
+            };
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public InstrumentationLibraryInfo getInstrumentationLibraryInfo() {
+            return span.getInstrumentationLibraryInfo();
+        }
+
+        @Override
+        public InstrumentationScopeInfo getInstrumentationScopeInfo() {
+            return span.getInstrumentationScopeInfo();
+        }
+
+        @Override
+        public boolean hasEnded() {
+            return span.hasEnded();
+        }
+
+        @Override
+        public long getLatencyNanos() {
+            return span.getLatencyNanos();
+        }
+
+        @Override
+        public SpanKind getKind() {
+            return span.getKind();
+        }
+
+        @Override
+        public <T> T getAttribute(AttributeKey<T> key) {
+            return span.getAttribute(key);
+        }
+    }
+}
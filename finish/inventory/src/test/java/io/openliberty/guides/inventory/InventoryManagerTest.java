@@ -0,0 +1,452 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+
+import io.openliberty.guides.inventory.client.LookupExecutor;
+import io.openliberty.guides.inventory.client.SystemClient;
+import io.openliberty.guides.inventory.client.SystemServiceStub;
+import io.openliberty.guides.inventory.model.BatchReport;
+import io.openliberty.guides.inventory.model.InventoryList;
+import io.openliberty.guides.inventory.model.RegistrationResult;
+import io.openliberty.guides.inventory.model.SystemData;
+
+public class InventoryManagerTest {
+
+    private static final int HOSTS = 10_000;
+    private static final int ADDS_PER_THREAD = 50_000;
+
+    private InventoryManager manager;
+    private ExecutorService lookupThreads;
+    private SystemServiceStub stub;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        stub = new SystemServiceStub();
+        manager = new InventoryManager();
+        manager.meter = OpenTelemetry.noop().getMeter("inventory");
+        manager.tracer = OpenTelemetry.noop().getTracer("inventory");
+        lookupThreads = Executors.newCachedThreadPool();
+        manager.lookupExecutor = new LookupExecutor(lookupThreads, false);
+        manager.systemClient = new SystemClient(manager.lookupExecutor, 50, 10, 60);
+        manager.SYSTEM_PORT = stub.getPort();
+        manager.cacheTtl = 300;
+        manager.cacheMaxEntries = 10_000;
+        manager.batchParallelism = 4;
+        manager.batchHostTimeout = 2_000;
+        manager.storeType = "heap";
+        manager.storeDir = Optional.empty();
+        manager.init();
+    }
+
+    @AfterEach
+    public void teardown() {
+        manager.systemClient.close();
+        lookupThreads.shutdownNow();
+        stub.close();
+    }
+
+    @Test
+    public void testAddReplacesExistingHost() {
+        manager.add("host1", properties("Linux", "alice"));
+        manager.add("host1", properties("Mac OS X", "bob"));
+
+        List<SystemData> systems = manager.list().getSystems();
+        assertEquals(1, systems.size(), "A host should only be stored once");
+        assertEquals("Mac OS X",
+            systems.get(0).getOsName(),
+            "Adding a known host should update its properties");
+    }
+
+    @Test
+    public void testAddAndListMetrics() {
+        InMemoryMetricReader reader = InMemoryMetricReader.create();
+        try (SdkMeterProvider meterProvider =
+                 SdkMeterProvider.builder().registerMetricReader(reader).build()) {
+            manager.meter = meterProvider.get("inventory");
+            manager.init();
+            manager.add("host1", properties("Linux", "alice"));
+            manager.add("host1", properties("Linux", "bob"));
+            manager.add("host2", properties("Windows 11", "carol"));
+            manager.list();
+            manager.list(10, null);
+            manager.list(10, null);
+
+            Collection<MetricData> metrics = reader.collectAllMetrics();
+            HistogramPointData newLinux = histogramPoint(metrics, "new", "linux");
+            assertEquals(1, newLinux.getCount());
+            assertEquals(1, histogramPoint(metrics, "duplicate", "linux").getCount());
+            assertEquals(1, histogramPoint(metrics, "new", "windows").getCount());
+            assertEquals(1_000.0, newLinux.getBoundaries().get(2),
+                "Buckets should suit nanosecond durations");
+            assertEquals(2, counterPoint(metrics, "page").getValue());
+            assertEquals(1, counterPoint(metrics, "full").getValue());
+            assertEquals(1, hostsPoint(metrics, "linux").getValue());
+            assertEquals(1, hostsPoint(metrics, "windows").getValue());
+            assertEquals(0, hostsPoint(metrics, "macos").getValue());
+        }
+    }
+
+    @Test
+    public void testClear() {
+        manager.add("host1", properties("Linux", "alice"));
+        manager.add("host2", properties("Linux", "bob"));
+
+        assertEquals(2, manager.clear(), "Both hosts should be cleared");
+        assertEquals(0, manager.clear(), "The inventory should already be empty");
+        assertEquals(0, manager.list().getTotal());
+    }
+
+    @Test
+    public void testListVersion() {
+        manager.add("host1", properties("Linux", "alice"));
+        InventoryList first = manager.list();
+        InventoryList unchanged = manager.list();
+        manager.add("host2", properties("Linux", "bob"));
+        InventoryList changed = manager.list();
+
+        assertEquals(first.getVersion(), unchanged.getVersion());
+        assertSame(first.getSystems(), unchanged.getSystems(),
+            "An unchanged inventory should reuse its snapshot");
+        assertTrue(changed.getVersion() > first.getVersion(),
+            "Adding a host should advance the version");
+        manager.add("host1", properties("Linux", "alice"));
+        manager.refresh("host2", properties("Linux", "bob"));
+        manager.addAll(Map.of("host1", properties("Linux", "alice")));
+        assertSame(changed.getSystems(), manager.list().getSystems(),
+            "Storing a host again with the same properties should keep the snapshot");
+        assertEquals(changed.getVersion(), manager.list().getVersion());
+        assertEquals(1, first.getSystems().size(),
+            "A snapshot should not see later changes");
+        assertThrows(UnsupportedOperationException.class,
+            () -> first.getSystems().clear());
+    }
+
+    @Test
+    public void testListSnapshotsUnderConcurrentWrites() throws Exception {
+        // The writer rewrites every host in hostname order with an increasing
+        // generation, so any point-in-time view has non-increasing
+        // generations in hostname order. A torn view would show an increase.
+        int hosts = 1_000;
+        int generations = 200;
+        int readers = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        for (int i = 0; i < hosts; i++) {
+            manager.add(String.format("host%04d", i), properties("Linux", "0"));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(readers + 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Jsonb jsonb = JsonbBuilder.create();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int g = 1; g <= generations; g++) {
+                    Properties props = properties("Linux", Integer.toString(g));
+                    for (int i = 0; i < hosts; i++) {
+                        manager.add(String.format("host%04d", i), props);
+                    }
+                }
+                writing.set(false);
+                return null;
+            });
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int r = 0; r < readers; r++) {
+                results.add(executor.submit(() -> {
+                    int snapshots = 0;
+                    long lastVersion = Long.MIN_VALUE;
+                    while (writing.get()) {
+                        InventoryList list = manager.list();
+                        assertTrue(list.getVersion() >= lastVersion,
+                            "Versions should never go backwards");
+                        lastVersion = list.getVersion();
+                        assertEquals(hosts, list.getSystems().size());
+                        int previous = Integer.MAX_VALUE;
+                        for (SystemData system : list.getSystems()) {
+                            int generation = Integer.parseInt(system.getUserName());
+                            assertTrue(generation <= previous && generation >= previous - 1
+                                || previous == Integer.MAX_VALUE,
+                                "Snapshot " + list.getVersion() + " is not consistent");
+                            previous = generation;
+                        }
+                        // Serialized while the writer keeps going
+                        jsonb.toJson(list);
+                        snapshots++;
+                    }
+                    return snapshots;
+                }));
+            }
+            writer.get(2, TimeUnit.MINUTES);
+            int snapshots = 0;
+            for (Future<Integer> result : results) {
+                snapshots += result.get(1, TimeUnit.MINUTES);
+            }
+            assertTrue(snapshots > 0, "The readers should have taken snapshots");
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+            jsonb.close();
+        }
+    }
+
+    @Test
+    public void testPagination() {
+        for (int i = 0; i < 25; i++) {
+            manager.add(String.format("host%02d", i), properties("Linux", "alice"));
+        }
+
+        List<String> hostnames = new ArrayList<>();
+        String next = null;
+        int pages = 0;
+        do {
+            InventoryList page = manager.list(10, next);
+            assertEquals(25, page.getTotal(), "Each page should report the full total");
+            for (SystemData system : page.getSystems()) {
+                hostnames.add(system.getHostname());
+            }
+            next = page.getNext();
+            pages++;
+        } while (next != null);
+
+        assertEquals(3, pages);
+        assertEquals(25, hostnames.size(), "Every host should be listed once");
+        assertEquals("host00", hostnames.get(0));
+        assertEquals("host24", hostnames.get(24));
+    }
+
+    @Test
+    public void testBatchRegistration() {
+        BatchReport report = manager.register(Arrays.asList("localhost", "badhostname"))
+                                    .toCompletableFuture().join();
+
+        assertEquals(1, report.getRegistered());
+        assertEquals(1, report.getFailed());
+        assertTrue(report.getResults().get(0).isRegistered(),
+            "localhost should be registered");
+        assertFalse(report.getResults().get(1).isRegistered(),
+            "badhostname should not be registered");
+        assertEquals(1, manager.list().getTotal(),
+            "Only the hosts that responded should be added");
+    }
+
+    @Test
+    public void testBatchAddIsOneUpdate() {
+        manager.add("host1", properties("Linux", "alice"));
+        long before = manager.list().getVersion();
+        manager.addAll(Map.of("host1", properties("Mac OS X", "alice"),
+                              "host2", properties("Linux", "bob"),
+                              "host3", properties("Windows 11", "carol")));
+
+        InventoryList after = manager.list();
+        assertEquals(before + 1, after.getVersion(),
+            "A batch should advance the version once");
+        assertEquals(3, after.getTotal());
+        assertEquals("Mac OS X", after.getSystems().get(0).getOsName());
+    }
+
+    @Test
+    public void testBatchRegistrationTimeout() {
+        stub.setDelayMillis(1_000);
+        manager.batchHostTimeout = 100;
+
+        RegistrationResult result = manager.register(Arrays.asList("localhost"))
+                                           .toCompletableFuture().join()
+                                           .getResults().get(0);
+
+        assertFalse(result.isRegistered(), "A slow host should time out");
+        assertEquals("Timed out after 100 ms", result.getError());
+    }
+
+    @Test
+    public void testConcurrentLookupsShareOneFetch() throws Exception {
+        int callers = 50;
+        stub.setDelayMillis(200);
+        long before = manager.list().getVersion();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Properties>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return manager.getAsync("localhost").toCompletableFuture().join();
+                }));
+            }
+            start.countDown();
+            for (Future<Properties> result : results) {
+                assertEquals("stub", result.get(10, TimeUnit.SECONDS)
+                                           .getProperty("user.name"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, stub.getRequestCount(),
+            "Concurrent lookups of one host should make one backend call");
+        assertEquals(before + 1, manager.list().getVersion(),
+            "Concurrent lookups of one host should add it once");
+        assertEquals(1, manager.list().getTotal());
+    }
+
+    @Test
+    public void testGetReturnsNullWhenLookupFails() {
+        manager.systemClient.close();
+        manager.systemClient = new SystemClient(manager.lookupExecutor, 50, 10, 60) {
+            @Override
+            public CompletionStage<Properties> getPropertiesAsync(String hostname, int port) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Lookup failed"));
+            }
+        };
+
+        assertNull(manager.get("localhost"), "A failed lookup should return null");
+        assertEquals(0, manager.list().getTotal(), "A failed lookup should add nothing");
+    }
+
+    @Test
+    public void testConcurrentAddsDoNotDuplicate() throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        runConcurrentAdds(threads);
+
+        List<SystemData> systems = manager.list().getSystems();
+        Set<String> hostnames = new HashSet<>();
+        for (SystemData system : systems) {
+            hostnames.add(system.getHostname());
+        }
+        assertEquals(HOSTS, systems.size(), "Every host should be stored once");
+        assertEquals(HOSTS, hostnames.size(), "No host should be duplicated");
+        assertEquals(HOSTS, manager.clear(), "The tracked size should match");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void testConcurrentAddScaling() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        assumeTrue(cores >= 2, "Scaling needs more than one core");
+        // Warms up the store and the JIT before the single-thread baseline
+        runConcurrentAdds(1);
+        manager.clear();
+        double single = runConcurrentAdds(1);
+        for (int threads = 2; threads <= cores; threads *= 2) {
+            manager.clear();
+            double multi = runConcurrentAdds(threads);
+            System.out.printf("InventoryManager.add(): %d threads, %.0f ops/s,"
+                + " %.2fx single thread%n", threads, multi, multi / single);
+            // Near-linear: each added thread brings at least half a thread's worth
+            assertTrue(multi >= single * (1 + (threads - 1) * 0.5),
+                String.format("%d threads reached %.2fx a single thread",
+                              threads, multi / single));
+        }
+    }
+
+    private double runConcurrentAdds(int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        // Each pass over the hosts stores other properties, so every add is
+        // a change rather than the early return for unchanged properties
+        Properties[] props = { properties("Linux", "alice"), properties("Linux", "bob") };
+        Future<?>[] results = new Future<?>[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            results[t] = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    int host = i + offset;
+                    manager.add("host" + (host % HOSTS), props[(host / HOSTS) % 2]);
+                }
+                return null;
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return (double) threads * ADDS_PER_THREAD / elapsed * 1_000_000_000L;
+    }
+
+    private HistogramPointData histogramPoint(Collection<MetricData> metrics,
+                                              String result, String osFamily) {
+        Attributes attributes = Attributes.of(AttributeKey.stringKey("result"), result,
+            AttributeKey.stringKey("os.family"), osFamily);
+        return metric(metrics, "inventory.add.duration").getHistogramData().getPoints()
+            .stream().filter(p -> p.getAttributes().equals(attributes))
+            .findFirst().orElseThrow();
+    }
+
+    private LongPointData counterPoint(Collection<MetricData> metrics, String kind) {
+        Attributes attributes = Attributes.of(AttributeKey.stringKey("kind"), kind);
+        return metric(metrics, "inventory.list.count").getLongSumData().getPoints()
+            .stream().filter(p -> p.getAttributes().equals(attributes))
+            .findFirst().orElseThrow();
+    }
+
+    private LongPointData hostsPoint(Collection<MetricData> metrics, String osFamily) {
+        Attributes attributes = Attributes.of(AttributeKey.stringKey("os.family"), osFamily);
+        return metric(metrics, "inventory.hosts").getLongGaugeData().getPoints()
+            .stream().filter(p -> p.getAttributes().equals(attributes))
+            .findFirst().orElseThrow();
+    }
+
+    private MetricData metric(Collection<MetricData> metrics, String name) {
+        return metrics.stream().filter(m -> m.getName().equals(name))
+                      .findFirst().orElseThrow();
+    }
+
+    private Properties properties(String osName, String userName) {
+        Properties props = new Properties();
+        props.setProperty("os.name", osName);
+        props.setProperty("user.name", userName);
+        return props;
+    }
+}
@@ -0,0 +1,113 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.OpenTelemetry;
+
+public class PropertiesCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() {
+        CompletableFuture<Properties> remote = new CompletableFuture<>();
+        PropertiesCache cache = cache(Duration.ofMinutes(5), false,
+            hostname -> {
+                loads.incrementAndGet();
+                return remote;
+            });
+
+        List<CompletableFuture<Properties>> callers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            callers.add(cache.get("host1"));
+        }
+        Properties props = new Properties();
+        remote.complete(props);
+
+        for (CompletableFuture<Properties> caller : callers) {
+            assertSame(props, caller.join());
+        }
+        assertEquals(1, loads.get(), "Concurrent misses should share one load");
+        assertSame(props, cache.get("host1").join());
+        assertEquals(1, loads.get(), "A cached entry should not be loaded again");
+    }
+
+    @Test
+    public void testExpiredEntryIsReloaded() throws Exception {
+        PropertiesCache cache = cache(Duration.ofMillis(50), false, this::load);
+
+        cache.get("host1").join();
+        Thread.sleep(100);
+        cache.get("host1").join();
+
+        assertEquals(2, loads.get(), "An expired entry should be loaded again");
+    }
+
+    @Test
+    public void testStaleEntryIsServedWhileRevalidating() throws Exception {
+        CompletableFuture<Properties> refresh = new CompletableFuture<>();
+        PropertiesCache cache = cache(Duration.ofMillis(50), true,
+            hostname -> loads.incrementAndGet() == 1
+                ? CompletableFuture.completedFuture(new Properties())
+                : refresh);
+
+        Properties first = cache.get("host1").join();
+        Thread.sleep(100);
+
+        assertSame(first, cache.get("host1").join(),
+            "A stale entry should be returned while it is refreshed");
+        assertEquals(2, loads.get(), "A stale entry should trigger a refresh");
+
+        Properties refreshed = new Properties();
+        refresh.complete(refreshed);
+        assertSame(refreshed, cache.get("host1").join(),
+            "The refreshed entry should replace the stale one");
+    }
+
+    @Test
+    public void testUnknownHostIsNotCached() {
+        PropertiesCache cache = cache(Duration.ofMinutes(5), false,
+            hostname -> {
+                loads.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            });
+
+        assertNull(cache.get("badhostname").join());
+        assertNull(cache.get("badhostname").join());
+        assertEquals(2, loads.get(), "A failed lookup should not be cached");
+    }
+
+    private CompletableFuture<Properties> load(String hostname) {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(new Properties());
+    }
+
+    private PropertiesCache cache(Duration ttl, boolean staleWhileRevalidate,
+            Function<String, CompletableFuture<Properties>> loader) {
+        return new PropertiesCache(OpenTelemetry.noop().getMeter("inventory"),
+            ttl, 100, staleWhileRevalidate, Runnable::run, loader);
+    }
+}
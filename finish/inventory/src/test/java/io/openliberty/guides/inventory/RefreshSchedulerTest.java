@@ -0,0 +1,172 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.OpenTelemetry;
+
+import io.openliberty.guides.inventory.client.LookupExecutor;
+import io.openliberty.guides.inventory.client.SystemClient;
+import io.openliberty.guides.inventory.client.SystemServiceStub;
+import io.openliberty.guides.inventory.model.SystemData;
+
+public class RefreshSchedulerTest {
+
+    private InventoryManager manager;
+    private RefreshScheduler refresher;
+    private ExecutorService lookupThreads;
+    private ScheduledExecutorService scheduler;
+    private SystemServiceStub stub;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        stub = new SystemServiceStub();
+        lookupThreads = Executors.newCachedThreadPool();
+        scheduler = Executors.newScheduledThreadPool(2);
+
+        manager = new InventoryManager();
+        manager.meter = OpenTelemetry.noop().getMeter("inventory");
+        manager.tracer = OpenTelemetry.noop().getTracer("inventory");
+        manager.lookupExecutor = new LookupExecutor(lookupThreads, false);
+        manager.systemClient = new SystemClient(manager.lookupExecutor, 50, 10, 60);
+        manager.SYSTEM_PORT = stub.getPort();
+        manager.cacheTtl = 300;
+        manager.cacheMaxEntries = 10_000;
+        manager.batchParallelism = 4;
+        manager.batchHostTimeout = 2_000;
+        manager.storeType = "heap";
+        manager.storeDir = Optional.empty();
+        manager.init();
+
+        refresher = new RefreshScheduler();
+        refresher.meter = manager.meter;
+        refresher.tracer = manager.tracer;
+        refresher.scheduler = scheduler;
+        refresher.manager = manager;
+        refresher.systemClient = manager.systemClient;
+        refresher.systemPort = stub.getPort();
+        refresher.interval = 100;
+        refresher.jitter = 0.5;
+        refresher.rate = 1_000;
+        refresher.concurrency = 2;
+        refresher.maxFailures = 2;
+        refresher.init();
+    }
+
+    @AfterEach
+    public void teardown() {
+        refresher.stop();
+        manager.systemClient.close();
+        scheduler.shutdownNow();
+        lookupThreads.shutdownNow();
+        stub.close();
+    }
+
+    @Test
+    public void testRefreshUpdatesHosts() throws Exception {
+        manager.add("localhost", properties("Windows", "old"));
+
+        refresher.refreshAll().get(10, TimeUnit.SECONDS);
+
+        SystemData system = manager.list().getSystems().get(0);
+        assertEquals("stub", system.getUserName(),
+            "The host should have the properties of the system service");
+        assertEquals("stub", manager.get("localhost").getProperty("user.name"),
+            "The cached properties should be refreshed too");
+        assertEquals(1, stub.getRequestCount());
+    }
+
+    @Test
+    public void testEvictsAfterConsecutiveFailures() throws Exception {
+        manager.add("localhost", properties("Linux", "alice"));
+        manager.add("badhostname", properties("Linux", "bob"));
+
+        refresher.refreshAll().get(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("badhostname", "localhost"), manager.hostnames(),
+            "A single failure should not evict a host");
+
+        refresher.refreshAll().get(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("localhost"), manager.hostnames(),
+            "A host that keeps failing should be evicted");
+    }
+
+    @Test
+    public void testRefreshDoesNotRestoreRemovedHosts() throws Exception {
+        manager.add("localhost", properties("Linux", "alice"));
+        stub.setDelayMillis(200);
+
+        var cycle = refresher.refreshAll();
+        manager.clear();
+        cycle.get(10, TimeUnit.SECONDS);
+
+        assertTrue(manager.hostnames().isEmpty(),
+            "A host cleared during a refresh should stay removed");
+    }
+
+    @Test
+    public void testScheduledCycles() throws Exception {
+        manager.add("localhost", properties("Linux", "alice"));
+        refresher.enabled = true;
+
+        refresher.start(null);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (stub.getRequestCount() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        refresher.stop();
+
+        assertTrue(stub.getRequestCount() >= 3, "Cycles should keep being scheduled");
+        assertFalse(manager.hostnames().isEmpty());
+    }
+
+    @Test
+    public void testCyclesContinueAfterFailure() throws Exception {
+        manager.add("localhost", properties("Linux", "alice"));
+        refresher.enabled = true;
+        // Makes refreshAll() throw before it returns a future
+        refresher.manager = null;
+
+        refresher.start(null);
+        Thread.sleep(400);
+        refresher.manager = manager;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (stub.getRequestCount() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        refresher.stop();
+
+        assertTrue(stub.getRequestCount() >= 1,
+            "A cycle that fails to start should not stop the next ones");
+    }
+
+    private Properties properties(String osName, String userName) {
+        Properties props = new Properties();
+        props.setProperty("os.name", osName);
+        props.setProperty("user.name", userName);
+        return props;
+    }
+}
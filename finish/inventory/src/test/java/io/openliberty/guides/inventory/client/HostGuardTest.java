@@ -0,0 +1,78 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.openliberty.guides.inventory.client.HostGuard.Admission;
+import io.openliberty.guides.inventory.client.HostGuard.State;
+
+public class HostGuardTest {
+
+    private static final long DELAY = 1_000;
+
+    private final AtomicInteger openCircuits = new AtomicInteger();
+    private final HostGuard guard = new HostGuard(1, DELAY, 10, openCircuits);
+
+    @Test
+    public void testOnlyTheProbeLeavesHalfOpen() {
+        assertEquals(Admission.ALLOWED, guard.admit(0));
+        assertEquals(Admission.ALLOWED, guard.admit(0));
+        assertEquals(State.OPEN, guard.complete(false, false, 0));
+        assertEquals(1, openCircuits.get());
+
+        assertEquals(Admission.PROBE, guard.admit(DELAY));
+        assertNull(guard.complete(true, false, DELAY),
+            "A call started before the circuit opened should not close it");
+        assertEquals(State.HALF_OPEN, guard.state());
+        assertEquals(Admission.CIRCUIT_OPEN, guard.admit(DELAY),
+            "The probe should still be the only call let through");
+
+        assertEquals(State.CLOSED, guard.complete(true, true, DELAY));
+        assertEquals(0, openCircuits.get());
+        assertEquals(Admission.ALLOWED, guard.admit(DELAY));
+    }
+
+    @Test
+    public void testStaleCallsLeaveOpenCircuit() {
+        assertEquals(Admission.ALLOWED, guard.admit(0));
+        assertEquals(Admission.ALLOWED, guard.admit(0));
+        assertEquals(State.OPEN, guard.complete(false, false, 0));
+
+        assertNull(guard.complete(true, false, 1),
+            "A call started before the circuit opened should not close it");
+        assertEquals(State.OPEN, guard.state());
+        assertEquals(Admission.CIRCUIT_OPEN, guard.admit(2));
+        assertEquals(1, openCircuits.get());
+        assertEquals(Admission.PROBE, guard.admit(DELAY));
+    }
+
+    @Test
+    public void testFailedProbeReopens() {
+        guard.admit(0);
+        guard.complete(false, false, 0);
+        assertEquals(Admission.PROBE, guard.admit(DELAY));
+        assertEquals(State.OPEN, guard.complete(false, true, DELAY));
+        assertEquals(Admission.CIRCUIT_OPEN, guard.admit(DELAY + 1));
+        assertEquals(1, openCircuits.get(), "A reopened circuit should be counted once");
+
+        guard.discard();
+        assertEquals(0, openCircuits.get(), "A discarded circuit should not be counted");
+        guard.discard();
+        assertEquals(0, openCircuits.get());
+    }
+}
@@ -0,0 +1,113 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
+
+public class LookupExecutorTest {
+
+    private static final ContextKey<String> KEY = ContextKey.named("test");
+
+    // Stands in for the blocking system service round trip
+    private static final long LOOKUP_MILLIS = 50;
+    private static final int PLATFORM_THREADS = 200;
+
+    private ExecutorService platformThreads;
+
+    @BeforeEach
+    public void setup() {
+        platformThreads = Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @AfterEach
+    public void teardown() {
+        platformThreads.shutdownNow();
+    }
+
+    @Test
+    public void testContextPropagatesToManagedExecutor() throws Exception {
+        assertContextPropagates(new LookupExecutor(platformThreads, false));
+    }
+
+    @Test
+    public void testContextPropagatesToVirtualThreads() throws Exception {
+        LookupExecutor executor = new LookupExecutor(platformThreads, true);
+        assumeTrue(executor.isVirtual(), "Virtual threads require Java 21");
+        try {
+            assertContextPropagates(executor);
+        } finally {
+            executor.close();
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkPlatformVersusVirtualThreads() throws Exception {
+        LookupExecutor virtual = new LookupExecutor(platformThreads, true);
+        assumeTrue(virtual.isVirtual(), "Virtual threads require Java 21");
+        LookupExecutor platform = new LookupExecutor(platformThreads, false);
+        try {
+            for (int lookups : new int[] { 1_000, 10_000, 50_000 }) {
+                long platformMillis = runLookups(platform, lookups);
+                long virtualMillis = runLookups(virtual, lookups);
+                System.out.printf("%d concurrent %d ms lookups: %d platform threads"
+                    + " %d ms, virtual threads %d ms%n", lookups, LOOKUP_MILLIS,
+                    PLATFORM_THREADS, platformMillis, virtualMillis);
+            }
+        } finally {
+            virtual.close();
+        }
+    }
+
+    private void assertContextPropagates(LookupExecutor executor) throws Exception {
+        String[] seen = new String[1];
+        try (Scope scope = Context.current().with(KEY, "parent").makeCurrent()) {
+            executor.getExecutorService()
+                    .submit(() -> seen[0] = Context.current().get(KEY))
+                    .get(10, TimeUnit.SECONDS);
+        }
+        assertEquals("parent", seen[0],
+            "The caller's context should be current in the lookup task");
+    }
+
+    private long runLookups(LookupExecutor executor, int lookups) throws Exception {
+        CountDownLatch done = new CountDownLatch(lookups);
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            executor.getExecutorService().execute(() -> {
+                try {
+                    Thread.sleep(LOOKUP_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        done.await(10, TimeUnit.MINUTES);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,407 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.core.Response;
+
+import io.openliberty.guides.common.PropertiesCodec;
+
+public class SystemClientTest {
+
+    private static final int LOOKUPS = 2_000;
+    private static final int WORKERS = 8;
+    private static final int SLOW_REQUESTS = 200;
+    private static final long SLOW_BACKEND_MILLIS = 200;
+
+    private SystemServiceStub stub;
+    private SystemClient client;
+    private ExecutorService lookupThreads;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        stub = new SystemServiceStub();
+        lookupThreads = Executors.newCachedThreadPool();
+        client = new SystemClient(new LookupExecutor(lookupThreads, false), 50, 10, 60);
+    }
+
+    @AfterEach
+    public void teardown() {
+        client.close();
+        lookupThreads.shutdownNow();
+        stub.close();
+    }
+
+    @Test
+    public void testSharedClientLookups() {
+        for (int i = 0; i < 3; i++) {
+            Properties props = client.getProperties("localhost", stub.getPort());
+            assertEquals("Linux", props.getProperty("os.name"));
+            assertEquals("stub", props.getProperty("user.name"));
+        }
+        assertEquals(3, stub.getRequestCount());
+        assertEquals(2, stub.getNotModifiedCount());
+    }
+
+    @Test
+    public void testConditionalRefresh() {
+        Properties first = client.getProperties("localhost", stub.getPort());
+        Properties second = client.getProperties("localhost", stub.getPort());
+        Properties third = client.getPropertiesAsync("localhost", stub.getPort())
+                                 .toCompletableFuture().join();
+
+        assertEquals(2, stub.getNotModifiedCount(),
+            "Refreshes of unchanged properties should be answered with 304");
+        assertEquals(first, second);
+        assertEquals(first, third);
+    }
+
+    @Test
+    public void testNotModifiedAfterEviction() {
+        int port = stub.getPort();
+        Properties known = client.getProperties("localhost", port);
+        stub.setDelayMillis(300);
+        CompletionStage<Properties> refresh = client.getPropertiesAsync("localhost", port);
+        // Drops the last properties while the conditional request is in flight
+        client.forget("localhost", port);
+        assertEquals(known, refresh.toCompletableFuture().join(),
+            "A 304 should be answered with the properties the condition was sent for");
+        assertEquals(1, stub.getNotModifiedCount());
+    }
+
+    @Test
+    public void testUnreachableHost() {
+        assertNull(client.getProperties("localhost", 1),
+            "A host without a system service should return null");
+    }
+
+    @Test
+    public void testAsyncLookups() {
+        Properties props = client.getPropertiesAsync("localhost", stub.getPort())
+                                 .toCompletableFuture().join();
+        assertEquals("Linux", props.getProperty("os.name"));
+        assertNull(client.getPropertiesAsync("localhost", 1)
+                         .toCompletableFuture().join(),
+            "A host without a system service should complete with null");
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        reconfigure(2, 200, false);
+        int port = stub.getPort();
+        stub.setErrorStatus(503);
+        assertNull(client.getProperties("localhost", port));
+        assertNull(client.getProperties("localhost", port));
+
+        long start = System.nanoTime();
+        assertNull(client.getProperties("localhost", port),
+            "An open circuit should reject the call");
+        long rejectedNanos = System.nanoTime() - start;
+        assertEquals(2, stub.getRequestCount(),
+            "An open circuit should not call the system service");
+        assertTrue(rejectedNanos < TimeUnit.MILLISECONDS.toNanos(50),
+            "An open circuit should fail fast");
+
+        stub.setErrorStatus(0);
+        Thread.sleep(250);
+        assertEquals("Linux", client.getProperties("localhost", port).getProperty("os.name"),
+            "A successful probe should close the circuit");
+        assertEquals("Linux", client.getProperties("localhost", port).getProperty("os.name"));
+        assertEquals(4, stub.getRequestCount());
+    }
+
+    @Test
+    public void testForgetDropsTheCircuit() {
+        reconfigure(1, 60_000, false);
+        int port = stub.getPort();
+        stub.setErrorStatus(503);
+        assertNull(client.getProperties("localhost", port));
+        assertNull(client.getProperties("localhost", port));
+        assertEquals(1, stub.getRequestCount(), "The circuit should be open");
+
+        client.forget("localhost", port);
+        stub.setErrorStatus(0);
+        assertEquals("Linux", client.getProperties("localhost", port).getProperty("os.name"),
+            "A host that left the inventory should start with a closed circuit");
+        assertEquals(2, stub.getRequestCount());
+    }
+
+    @Test
+    public void testFallbackToLastKnownProperties() {
+        reconfigure(2, 60_000, true);
+        int port = stub.getPort();
+        Properties known = client.getProperties("localhost", port);
+        stub.setErrorStatus(500);
+
+        assertEquals(known, client.getPropertiesAsync("localhost", port)
+                                  .toCompletableFuture().join(),
+            "A failed asynchronous call should serve the last known properties");
+        assertEquals(known, client.getProperties("localhost", port),
+            "A failed call should serve the last known properties");
+        assertEquals(known, client.getPropertiesAsync("localhost", port)
+                                  .toCompletableFuture().join(),
+            "An open circuit should serve the last known properties");
+        assertEquals(3, stub.getRequestCount());
+        assertNull(client.getPropertiesAsync("localhost", port, false)
+                         .toCompletableFuture().join(),
+            "Callers that opt out should see the failure");
+    }
+
+    @Test
+    public void testBulkhead() throws Exception {
+        client.bulkheadMaxConcurrent = 1;
+        reconfigure(5, 60_000, false);
+        stub.setDelayMillis(300);
+        int port = stub.getPort();
+
+        CompletionStage<Properties> first = client.getPropertiesAsync("localhost", port);
+        assertNull(client.getPropertiesAsync("localhost", port)
+                         .toCompletableFuture().get(100, TimeUnit.MILLISECONDS),
+            "A call beyond the bulkhead should be rejected");
+        assertEquals("Linux", first.toCompletableFuture().get(10, TimeUnit.SECONDS)
+                                   .getProperty("os.name"));
+        assertEquals("Linux", client.getProperties("localhost", port).getProperty("os.name"),
+            "The bulkhead should admit calls again once the first completed");
+    }
+
+    @Test
+    public void testBinaryProperties() {
+        stub.setBinary(true);
+        int port = stub.getPort();
+        Properties props = client.getProperties("localhost", port);
+        assertEquals("Linux", props.getProperty("os.name"));
+        assertEquals("stub", props.getProperty("user.name"));
+        assertEquals(1, stub.getBinaryResponseCount(),
+            "The binary form should be preferred when the system service offers it");
+
+        client.close();
+        client.binary = false;
+        client.init();
+        assertEquals("Linux", client.getPropertiesAsync("localhost", port)
+                                    .toCompletableFuture().join().getProperty("os.name"));
+        assertEquals(1, stub.getBinaryResponseCount(),
+            "JSON should be requested when the binary form is disabled");
+    }
+
+    @Test
+    public void testBinaryPropertiesReader() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("os.name", "Windows 11");
+        props.setProperty("user.name", "\u00e9l\u00e8ve");
+        props.setProperty("long.value", "x".repeat(300));
+        byte[] encoded = PropertiesCodec.encode(props);
+        BinaryPropertiesProvider reader = new BinaryPropertiesProvider();
+        assertTrue(reader.isReadable(Properties.class, Properties.class, null,
+            BinaryPropertiesProvider.MEDIA_TYPE_TYPE));
+        assertEquals(props, reader.readFrom(Properties.class, Properties.class, null,
+            BinaryPropertiesProvider.MEDIA_TYPE_TYPE, null, new ByteArrayInputStream(encoded)));
+        assertThrows(EOFException.class, () -> reader.readFrom(Properties.class,
+            Properties.class, null, BinaryPropertiesProvider.MEDIA_TYPE_TYPE, null,
+            new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length - 1))),
+            "A truncated body should be rejected");
+    }
+
+    @Test
+    public void testPreparedTargets() {
+        int port = stub.getPort();
+        SystemClient.Target target = client.target("localhost", port);
+        assertSame(target, client.target("localhost", port),
+            "A host should keep its prepared target");
+        assertNotSame(target, client.target("localhost", port + 1),
+            "A new port should prepare a new target");
+
+        assertNull(client.getProperties("localhost", port + 1));
+        assertEquals("Linux", client.getProperties("localhost", port).getProperty("os.name"),
+            "Returning to the old port should prepare its target again");
+    }
+
+    @Test
+    public void testLoopbackTransport() throws Exception {
+        client.close();
+        client = new SystemClient(new LookupExecutor(lookupThreads, false),
+            new LoopbackSystemTransport("constant:50", 0, "uniform:10:20"));
+
+        CompletableFuture<Properties> pending =
+            client.getPropertiesAsync("host1.example.com", 9080).toCompletableFuture();
+        assertFalse(pending.isDone(), "The loopback latency should delay the answer");
+        Properties first = pending.get(10, TimeUnit.SECONDS);
+        Properties second = client.getProperties("host1.example.com", 9080);
+        assertEquals(first.getProperty("os.name"), second.getProperty("os.name"),
+            "A host should always have the same properties");
+        assertEquals(first.getProperty("user.name"), second.getProperty("user.name"));
+        int payload = first.getProperty("loopback.payload").length();
+        assertTrue(payload >= 10 && payload <= 20, "Unexpected payload size " + payload);
+        assertEquals(0, stub.getRequestCount(), "No system service should be called");
+    }
+
+    @Test
+    public void testLoopbackFailuresOpenTheCircuit() {
+        LoopbackSystemTransport failing = new LoopbackSystemTransport("0", 1.0, "0");
+        AtomicInteger sent = new AtomicInteger();
+        client.close();
+        client = new SystemClient(new LookupExecutor(lookupThreads, false),
+            new SystemTransport() {
+                @Override
+                public String name() {
+                    return "counting";
+                }
+
+                @Override
+                public CompletionStage<Properties> send(String hostname, int port) {
+                    sent.incrementAndGet();
+                    return failing.send(hostname, port);
+                }
+            });
+        reconfigure(2, 60_000, false);
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(client.getProperties("host1.example.com", 9080));
+        }
+        assertEquals(2, sent.get(), "Failed loopback calls should open the circuit");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkSharedVersusPerCallClient() {
+        int port = stub.getPort();
+        for (int i = 0; i < LOOKUPS / 10; i++) {
+            client.getProperties("localhost", port);
+            perCallLookup(port);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            perCallLookup(port);
+        }
+        double perCall = LOOKUPS / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            client.getProperties("localhost", port);
+        }
+        double shared = LOOKUPS / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("SystemClient lookups/s: per-call client %.0f,"
+            + " shared pooled client %.0f (%.1fx)%n", perCall, shared, shared / perCall);
+    }
+
+    /**
+     * Simulates a small pool of server worker threads handling requests
+     * against a slow system service, once with the blocking lookup and once
+     * with the asynchronous one.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkSyncVersusAsyncUnderSlowBackend() throws Exception {
+        stub.setDelayMillis(SLOW_BACKEND_MILLIS);
+        client.close();
+        client.poolSize = SLOW_REQUESTS;
+        client.maxPerRoute = SLOW_REQUESTS;
+        client.bulkheadMaxConcurrent = SLOW_REQUESTS;
+        client.init();
+        runSlowBackendLoad("sync", false);
+        runSlowBackendLoad("async", true);
+    }
+
+    private void runSlowBackendLoad(String mode, boolean async) throws Exception {
+        int port = stub.getPort();
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+        AtomicLong workerNanos = new AtomicLong();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<?>> done = new ArrayList<>();
+
+        for (int i = 0; i < SLOW_REQUESTS; i++) {
+            long start = System.nanoTime();
+            CompletableFuture<Object> finished = new CompletableFuture<>();
+            done.add(finished);
+            workers.execute(() -> {
+                long begin = System.nanoTime();
+                try {
+                    if (async) {
+                        client.getPropertiesAsync("localhost", port)
+                              .whenComplete((props, e) -> {
+                                  latencies.add(System.nanoTime() - start);
+                                  finished.complete(props);
+                              });
+                    } else {
+                        client.getProperties("localhost", port);
+                        latencies.add(System.nanoTime() - start);
+                        finished.complete(null);
+                    }
+                } finally {
+                    workerNanos.addAndGet(System.nanoTime() - begin);
+                }
+            });
+        }
+        CompletableFuture.allOf(done.toArray(new CompletableFuture<?>[0]))
+                         .get(5, TimeUnit.MINUTES);
+        workers.shutdown();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        long p99 = sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+        System.out.printf("%s lookups, %d ms backend, %d workers: %d ms worker"
+            + " time per request, p99 latency %d ms%n", mode, SLOW_BACKEND_MILLIS,
+            WORKERS, TimeUnit.NANOSECONDS.toMillis(workerNanos.get() / SLOW_REQUESTS),
+            TimeUnit.NANOSECONDS.toMillis(p99));
+    }
+
+    private void reconfigure(int failureThreshold, long delay, boolean fallback) {
+        client.close();
+        client.breakerFailureThreshold = failureThreshold;
+        client.breakerDelay = delay;
+        client.fallbackToLastKnown = fallback;
+        client.init();
+    }
+
+    // The client lifecycle used before the client was shared
+    private Properties perCallLookup(int port) {
+        Client perCall = ClientBuilder.newClient();
+        try {
+            Response response = perCall
+                .target("http://localhost:" + port + "/system/properties")
+                .request().get();
+            return response.readEntity(Properties.class);
+        } finally {
+            perCall.close();
+        }
+    }
+}
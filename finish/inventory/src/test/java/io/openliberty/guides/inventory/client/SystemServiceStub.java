@@ -0,0 +1,135 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.openliberty.guides.common.PropertiesCodec;
+
+/**
+ * Minimal stand-in for the system service that answers
+ * /system/properties on localhost.
+ */
+public class SystemServiceStub implements AutoCloseable {
+
+    private static final byte[] PROPERTIES = ("{\"os.name\":\"Linux\","
+        + "\"user.name\":\"stub\"}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BINARY_PROPERTIES = PropertiesCodec.encode(
+        Map.of("os.name", "Linux", "user.name", "stub"));
+    private static final String ENTITY_TAG = "\"stub-v1\"";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile long delayMillis;
+    private volatile int errorStatus;
+    private volatile boolean binary;
+    private final AtomicInteger binaryResponses = new AtomicInteger();
+
+    public SystemServiceStub() throws IOException {
+        // Avoids Nagle/delayed-ACK stalls on keep-alive connections
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/system/properties", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    public int getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    public void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    public int getBinaryResponseCount() {
+        return binaryResponses.get();
+    }
+
+    /**
+     * Answers requests that accept it with the binary form of the
+     * properties, like the system service, instead of always with JSON.
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    /**
+     * Answers every request with the given error status, or normally again
+     * when the status is 0.
+     */
+    public void setErrorStatus(int errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorStatus != 0) {
+            exchange.sendResponseHeaders(errorStatus, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().add("ETag", ENTITY_TAG);
+        if (ENTITY_TAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        byte[] properties = PROPERTIES;
+        if (binary && accept != null && accept.contains(BinaryPropertiesProvider.MEDIA_TYPE)) {
+            binaryResponses.incrementAndGet();
+            properties = BINARY_PROPERTIES;
+            exchange.getResponseHeaders().add("Content-Type", BinaryPropertiesProvider.MEDIA_TYPE);
+        } else {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+        }
+        exchange.sendResponseHeaders(200, properties.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(properties);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+
+import org.junit.jupiter.api.Test;
+
+public class SystemDataTest {
+
+    @Test
+    public void testEqualityIsByHostname() {
+        SystemData first = new SystemData("host1", "Linux", "alice");
+        SystemData updated = new SystemData("host1", "Mac OS X", "bob");
+        SystemData other = new SystemData("host2", "Linux", "alice");
+
+        assertEquals(first, updated);
+        assertEquals(first.hashCode(), updated.hashCode());
+        assertFalse(first.equals(other));
+
+        Set<SystemData> systems = new HashSet<>();
+        systems.add(first);
+        systems.add(updated);
+        systems.add(other);
+        assertEquals(2, systems.size(), "Hash-based collections should dedupe by hostname");
+    }
+
+    @Test
+    public void testValuesAreShared() {
+        SystemData first = new SystemData("host1", new String("Linux"), "alice");
+        SystemData second = new SystemData("host2", new String("Linux"), "bob");
+
+        assertSame(first.getOsName(), second.getOsName(),
+            "Equal property values should be stored once");
+    }
+
+    @Test
+    public void testOnlyTrackedPropertiesAreKept() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("os.name", "Linux");
+        props.setProperty("user.name", "alice");
+        props.setProperty("java.version", "21");
+
+        SystemData system = new SystemData("host1", props);
+
+        assertEquals(2, system.getProperties().size());
+        try (Jsonb jsonb = JsonbBuilder.create()) {
+            String json = jsonb.toJson(system);
+            assertEquals("{\"hostname\":\"host1\",\"properties\":"
+                + "{\"os.name\":\"Linux\",\"user.name\":\"alice\"}}", json);
+            assertFalse(json.contains("osName"), "Typed getters should not be serialized");
+        }
+    }
+}
@@ -0,0 +1,210 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.openliberty.guides.inventory.model.SystemData;
+
+public class OffHeapInventoryStoreTest {
+
+    // Small chunks so that the tests fill and compact several of them
+    private static final int CHUNK_SIZE = 128 * 1024;
+
+    private OffHeapInventoryStore store;
+
+    @BeforeEach
+    public void setup() {
+        store = new OffHeapInventoryStore(CHUNK_SIZE);
+    }
+
+    @AfterEach
+    public void teardown() {
+        store.close();
+    }
+
+    @Test
+    public void testPutAndGet() {
+        assertTrue(store.put(new SystemData("host1", "Linux", "alice")));
+        assertFalse(store.put(new SystemData("host1", "Mac OS X", "bob")),
+            "A known host should be replaced");
+        store.put(new SystemData("host2", null, "carol"));
+
+        SystemData host1 = store.get("host1");
+        assertEquals("Mac OS X", host1.getOsName());
+        assertEquals("bob", host1.getUserName());
+        assertNull(store.get("host2").getOsName(), "Missing properties should be kept");
+        assertNull(store.get("host3"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void testRemove() {
+        for (int i = 0; i < 10; i++) {
+            store.put(new SystemData("host" + i, "Linux", "alice"));
+        }
+        store.iterator();
+
+        assertTrue(store.remove("host3"));
+        assertFalse(store.remove("host3"), "A host should only be removed once");
+        assertFalse(store.replace(new SystemData("host3", "Linux", "bob")),
+            "A removed host should not be replaced");
+        assertNull(store.get("host3"));
+        assertTrue(store.replace(new SystemData("host4", "Linux", "bob")));
+        assertEquals("bob", store.get("host4").getUserName());
+        assertEquals(9, store.size());
+        assertEquals("host4", store.page("host2", 1).get(0).getHostname(),
+            "Pages should skip removed hosts");
+
+        assertTrue(store.put(new SystemData("host3", "Windows 11", "bob")),
+            "A removed host should be added again");
+        assertEquals(10, hostnames(store.iterator()).size());
+        assertEquals("Windows 11", store.get("host3").getOsName());
+    }
+
+    @Test
+    public void testOrderAndPages() {
+        for (int i = 99; i >= 0; i--) {
+            store.put(new SystemData(String.format("host%02d", i), "Linux", "alice"));
+        }
+
+        List<String> all = hostnames(store.iterator());
+        assertEquals(100, all.size());
+        assertEquals("host00", all.get(0));
+        assertEquals("host99", all.get(99));
+
+        List<SystemData> page = store.page("host41", 5);
+        assertEquals(5, page.size());
+        assertEquals("host42", page.get(0).getHostname());
+        assertEquals("host46", page.get(4).getHostname());
+        assertEquals(0, store.page("host99", 5).size());
+    }
+
+    @Test
+    public void testMatchesHeapStore() {
+        // Enough changes to resize the index and compact the chunks
+        HeapInventoryStore heap = new HeapInventoryStore();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            String hostname = "host" + random.nextInt(5_000);
+            if (random.nextInt(5) == 0) {
+                assertEquals(heap.remove(hostname), store.remove(hostname));
+                continue;
+            }
+            String[] osNames = { "Linux", "Windows 11", "Mac OS X", "SunOS", null };
+            SystemData system = new SystemData(hostname,
+                osNames[random.nextInt(osNames.length)], "user" + i);
+            if (random.nextInt(10) == 0) {
+                assertEquals(heap.replace(system), store.replace(system));
+                continue;
+            }
+            assertEquals(heap.put(system), store.put(system));
+            if (i % 7_000 == 0) {
+                // Ordered reads in between merge the hosts added so far
+                String after = "host" + random.nextInt(5_000);
+                assertEquals(hostnames(heap.page(after, 20).iterator()),
+                             hostnames(store.page(after, 20).iterator()));
+            }
+        }
+
+        assertEquals(heap.size(), store.size());
+        long[] scanned = new long[OsFamilyCounts.FAMILIES.size()];
+        heap.iterator().forEachRemaining(
+            system -> scanned[OsFamilyCounts.family(system.getOsName())]++);
+        for (int family = 0; family < scanned.length; family++) {
+            String name = OsFamilyCounts.FAMILIES.get(family);
+            assertEquals(scanned[family], heap.osFamilyCounts().count(family), name);
+            assertEquals(scanned[family], store.osFamilyCounts().count(family), name);
+        }
+        Iterator<SystemData> expected = heap.iterator();
+        Iterator<SystemData> actual = store.iterator();
+        while (expected.hasNext()) {
+            SystemData system = expected.next();
+            SystemData stored = actual.next();
+            assertEquals(system.getHostname(), stored.getHostname());
+            assertEquals(system.getOsName(), stored.getOsName());
+            assertEquals(system.getUserName(), stored.getUserName());
+        }
+        assertFalse(actual.hasNext());
+        assertTrue(store.reservedBytes() < 1024 * 1024,
+            "Replaced records should be reclaimed");
+    }
+
+    @Test
+    public void testIteratorIsUnaffectedByLaterChanges() {
+        for (int i = 0; i < 10; i++) {
+            store.put(new SystemData("host" + i, "Linux", "alice"));
+        }
+        Iterator<SystemData> iterator = store.iterator();
+        store.clear();
+        store.put(new SystemData("host0", "Windows 11", "bob"));
+
+        SystemData first = iterator.next();
+        assertEquals("host0", first.getHostname());
+        assertEquals("Linux", first.getOsName());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testIteratorPages() {
+        int hosts = OffHeapInventoryStore.PAGE * 2 + 10;
+        for (int i = 0; i < hosts; i++) {
+            store.put(new SystemData(String.format("host%04d", i), "Linux", "alice"));
+        }
+        Iterator<SystemData> iterator = store.iterator();
+        List<String> seen = new ArrayList<>();
+        for (int i = 0; i < OffHeapInventoryStore.PAGE; i++) {
+            seen.add(iterator.next().getHostname());
+        }
+        // Seen from the next page on, without repeating the hosts returned
+        store.remove("host0000");
+        store.remove(String.format("host%04d", hosts - 1));
+        store.put(new SystemData("host9999", "Linux", "bob"));
+        iterator.forEachRemaining(system -> seen.add(system.getHostname()));
+
+        assertEquals(hosts, seen.size());
+        assertEquals("host0000", seen.get(0));
+        assertEquals("host9999", seen.get(hosts - 1));
+        assertEquals(seen.size(), new HashSet<>(seen).size(), "No host should be repeated");
+    }
+
+    @Test
+    public void testClear() {
+        store.put(new SystemData("host1", "Linux", "alice"));
+        store.put(new SystemData("host2", "Linux", "bob"));
+
+        assertEquals(2, store.clear());
+        assertEquals(0, store.clear());
+        assertEquals(0, store.osFamilyCounts().count(OsFamilyCounts.family("Linux")));
+        assertNull(store.get("host1"));
+        assertFalse(store.iterator().hasNext());
+    }
+
+    private List<String> hostnames(Iterator<SystemData> iterator) {
+        List<String> hostnames = new ArrayList<>();
+        iterator.forEachRemaining(system -> hostnames.add(system.getHostname()));
+        return hostnames;
+    }
+}
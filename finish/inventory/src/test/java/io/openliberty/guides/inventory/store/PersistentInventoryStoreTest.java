@@ -0,0 +1,199 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.guides.inventory.model.SystemData;
+
+public class PersistentInventoryStoreTest {
+
+    private static final long NO_SNAPSHOTS = Long.MAX_VALUE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRecoversFromLog() throws Exception {
+        PersistentInventoryStore store = open(NO_SNAPSHOTS);
+        store.put(new SystemData("host1", "Linux", "alice"));
+        store.clear();
+        store.put(new SystemData("host2", "Linux", "bob"));
+        store.put(new SystemData("host2", "Mac OS X", "bob"));
+        store.put(new SystemData("host3", null, "carol"));
+        store.put(new SystemData("host4", "Linux", "dave"));
+        store.remove("host4");
+        store.close();
+
+        PersistentInventoryStore recovered = open(NO_SNAPSHOTS);
+        assertEquals(2, recovered.size());
+        assertNull(recovered.get("host1"), "The clear should be replayed");
+        assertNull(recovered.get("host4"), "The remove should be replayed");
+        assertEquals("Mac OS X", recovered.get("host2").getOsName());
+        assertNull(recovered.get("host3").getOsName());
+        recovered.close();
+    }
+
+    @Test
+    public void testPutAll() throws Exception {
+        PersistentInventoryStore store = open(NO_SNAPSHOTS);
+        store.put(new SystemData("host0", "Linux", "alice"));
+        List<SystemData> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new SystemData("host" + i, "Mac OS X", "user" + i));
+        }
+        assertEquals(99, store.putAll(batch), "Only the new hosts should count as added");
+        assertEquals(0, store.putAll(List.of()));
+        store.close();
+
+        PersistentInventoryStore recovered = open(NO_SNAPSHOTS);
+        assertEquals(100, recovered.size());
+        assertEquals("Mac OS X", recovered.get("host0").getOsName());
+        assertEquals("user99", recovered.get("host99").getUserName());
+        recovered.close();
+    }
+
+    @Test
+    public void testRecoversFromSnapshotAndLog() throws Exception {
+        PersistentInventoryStore store = open(NO_SNAPSHOTS);
+        for (int i = 0; i < 1_000; i++) {
+            store.put(new SystemData("host" + i, "Linux", "alice"));
+        }
+        store.snapshot();
+        store.put(new SystemData("host0", "Windows 11", "bob"));
+        store.put(new SystemData("host1000", "Linux", "carol"));
+        store.close();
+
+        assertEquals(1, segments().size(), "Segments in the snapshot should be deleted");
+        PersistentInventoryStore recovered = open(NO_SNAPSHOTS);
+        assertEquals(1_001, recovered.size());
+        assertEquals("Windows 11", recovered.get("host0").getOsName());
+        assertEquals("carol", recovered.get("host1000").getUserName());
+        recovered.close();
+    }
+
+    @Test
+    public void testSnapshotWhenLogGrows() throws Exception {
+        PersistentInventoryStore store = open(4 * 1024);
+        for (int i = 0; i < 1_000; i++) {
+            store.put(new SystemData("host" + (i % 100), "Linux", "user" + i));
+        }
+        store.close();
+
+        assertTrue(Files.exists(directory.resolve(PersistentInventoryStore.SNAPSHOT)));
+        PersistentInventoryStore recovered = open(NO_SNAPSHOTS);
+        assertEquals(100, recovered.size());
+        assertEquals("user999", recovered.get("host99").getUserName());
+        recovered.close();
+    }
+
+    @Test
+    public void testDropsTornRecord() throws Exception {
+        PersistentInventoryStore store = open(NO_SNAPSHOTS);
+        store.put(new SystemData("host1", "Linux", "alice"));
+        store.close();
+        Path segment = segments().get(segments().size() - 1);
+        long size = Files.size(segment);
+        // A record header whose payload never reached the disk
+        Files.write(segment, new byte[] { 0, 0, 0, 40, 1, 2, 3, 4, 1 },
+                    StandardOpenOption.APPEND);
+
+        PersistentInventoryStore recovered = open(NO_SNAPSHOTS);
+        assertEquals(1, recovered.size());
+        assertEquals(size, Files.size(segment), "The torn record should be truncated");
+        recovered.put(new SystemData("host2", "Linux", "bob"));
+        recovered.close();
+
+        PersistentInventoryStore reopened = open(NO_SNAPSHOTS);
+        assertEquals(2, reopened.size());
+        reopened.close();
+    }
+
+    @Test
+    public void testFailedWriteIsNotKept() throws Exception {
+        PersistentInventoryStore store = open(NO_SNAPSHOTS);
+        store.put(new SystemData("host1", "Linux", "alice"));
+        // Closing the file under the store makes the next write fail
+        store.log().close();
+
+        assertThrows(UncheckedIOException.class,
+            () -> store.put(new SystemData("host2", "Linux", "bob")));
+        assertNull(store.get("host2"), "A change that is not durable should not be seen");
+        assertEquals(1, store.size());
+        assertThrows(UncheckedIOException.class, () -> store.remove("host1"));
+        assertEquals("alice", store.get("host1").getUserName(),
+            "No change should be applied once the log has failed");
+        store.close();
+
+        PersistentInventoryStore recovered = open(NO_SNAPSHOTS);
+        assertEquals(1, recovered.size());
+        recovered.close();
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        PersistentInventoryStore store = open(64 * 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t * 500;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    store.put(new SystemData("host" + (offset + i), "Linux", "alice"));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+        store.close();
+
+        PersistentInventoryStore recovered = open(NO_SNAPSHOTS);
+        assertEquals(4_000, recovered.size());
+        assertEquals("alice", recovered.get("host3999").getUserName());
+        recovered.close();
+    }
+
+    private PersistentInventoryStore open(long snapshotBytes) throws Exception {
+        return new PersistentInventoryStore(directory, new HeapInventoryStore(),
+                                            snapshotBytes, Runnable::run);
+    }
+
+    private List<Path> segments() throws Exception {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().startsWith("log-"))
+                 .sorted()
+                 .forEach(segments::add);
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,262 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.inventory.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import io.opentelemetry.sdk.autoconfigure.spi.internal.DefaultConfigProperties;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+public class InventorySamplerTest {
+
+    private InMemorySpanExporter exporter;
+    private SdkTracerProvider tracerProvider;
+
+    @AfterEach
+    public void teardown() {
+        tracerProvider.close();
+    }
+
+    @Test
+    public void testRatio() {
+        Tracer tracer = tracer(config("0.0", Collections.emptyMap(), false, "0s"));
+        runRequests(tracer, 100, false);
+        assertEquals(0, exporter.getFinishedSpanItems().size());
+
+        tracer = tracer(config("1.0", Collections.emptyMap(), false, "0s"));
+        runRequests(tracer, 100, false);
+        assertEquals(200, exporter.getFinishedSpanItems().size(),
+            "Every span should be sampled at a ratio of 1");
+    }
+
+    @Test
+    public void testEndpointOverrides() {
+        Map<String, String> endpoints = new HashMap<>();
+        endpoints.put("/inventory/systems", "1.0");
+        endpoints.put("DELETE /inventory/systems", "0.0");
+        endpoints.put("RefreshCycle", "1.0");
+        Tracer tracer = tracer(config("0.0", endpoints, false, "0s"));
+
+        tracer.spanBuilder("GET /inventory/systems/{hostname}")
+              .setAttribute("http.request.method", "GET")
+              .setAttribute("url.path", "/inventory/systems/host1")
+              .startSpan().end();
+        tracer.spanBuilder("DELETE /inventory/systems")
+              .setAttribute("http.request.method", "DELETE")
+              .setAttribute("url.path", "/inventory/systems")
+              .startSpan().end();
+        tracer.spanBuilder("GET /health")
+              .setAttribute("http.method", "GET")
+              .setAttribute("http.target", "/health")
+              .startSpan().end();
+        tracer.spanBuilder("RefreshCycle").startSpan().end();
+
+        assertEquals(List.of("GET /inventory/systems/{hostname}", "RefreshCycle"), names(),
+            "The longest matching rule should decide");
+    }
+
+    @Test
+    public void testFollowsParentDecision() {
+        Tracer tracer = tracer(config("0.0", Collections.emptyMap(), false, "0s"));
+        SpanContext remote = SpanContext.createFromRemoteParent(
+            "0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331",
+            TraceFlags.getSampled(), TraceState.getDefault());
+
+        Span server = tracer.spanBuilder("server")
+                            .setParent(Context.root().with(Span.wrap(remote)))
+                            .startSpan();
+        try (Scope scope = server.makeCurrent()) {
+            tracer.spanBuilder("child").startSpan().end();
+        }
+        server.end();
+
+        assertEquals(List.of("child", "server"), names(),
+            "A sampled parent should be followed at any ratio");
+    }
+
+    @Test
+    public void testKeepsFailedTraces() {
+        Tracer tracer = tracer(config("0.0", Collections.emptyMap(), true, "0s"));
+        runRequests(tracer, 10, false);
+        assertEquals(0, exporter.getFinishedSpanItems().size(),
+            "Traces that succeed should not be kept");
+
+        runRequests(tracer, 1, true);
+        List<SpanData> kept = exporter.getFinishedSpanItems();
+        assertEquals(List.of("child", "request"), names(),
+            "A failed trace should be kept with all its spans");
+        for (SpanData span : kept) {
+            assertTrue(span.getSpanContext().isSampled(), "Kept spans should be sampled");
+        }
+        assertEquals(kept.get(1).getSpanId(), kept.get(0).getParentSpanId());
+    }
+
+    @Test
+    public void testKeepsSlowTraces() {
+        Tracer tracer = tracer(config("0.0", Collections.emptyMap(), false, "1s"));
+        Span fast = tracer.spanBuilder("fast").setStartTimestamp(1_000, TimeUnit.MILLISECONDS)
+                          .startSpan();
+        fast.end(1_999, TimeUnit.MILLISECONDS);
+        Span slow = tracer.spanBuilder("slow").setStartTimestamp(1_000, TimeUnit.MILLISECONDS)
+                          .startSpan();
+        slow.end(2_000, TimeUnit.MILLISECONDS);
+
+        assertEquals(List.of("slow"), names());
+    }
+
+    @Test
+    public void testLateSpans() {
+        Tracer tracer = tracer(config("0.0", Collections.emptyMap(), true, "0s"));
+        Span request = tracer.spanBuilder("request").startSpan();
+        Context context = Context.current().with(request);
+        Span failing = tracer.spanBuilder("failing").setParent(context).startSpan();
+        Span late = tracer.spanBuilder("late").setParent(context).startSpan();
+        failing.setAttribute(TailSamplingSpanProcessor.ERROR_TYPE, "500");
+        failing.end();
+        request.end();
+        late.end();
+        assertEquals(List.of("failing", "request", "late"), names(),
+            "A span that ends after its root should follow the decision of the trace");
+
+        exporter.reset();
+        request = tracer.spanBuilder("request").startSpan();
+        context = Context.current().with(request);
+        late = tracer.spanBuilder("late").setParent(context).startSpan();
+        Span lateFailure = tracer.spanBuilder("lateFailure").setParent(context).startSpan();
+        request.end();
+        late.end();
+        lateFailure.setStatus(StatusCode.ERROR);
+        lateFailure.end();
+        assertEquals(List.of("lateFailure"), names(),
+            "Late spans of a dropped trace should only be kept when they fail");
+    }
+
+    @Test
+    public void testServerConfig() throws IOException {
+        Properties bootstrap = new Properties();
+        try (Reader reader = Files.newBufferedReader(
+                 Paths.get("src/main/liberty/config/bootstrap.properties"))) {
+            bootstrap.load(reader);
+        }
+        Map<String, String> properties = new HashMap<>();
+        bootstrap.stringPropertyNames()
+                 .forEach(name -> properties.put(name, bootstrap.getProperty(name)));
+        ConfigProperties config = DefaultConfigProperties.createFromMap(properties);
+
+        // The sampler that the server selects, then replaced by the
+        // customizer once the telemetry jar is installed
+        Sampler configured = Sampler.parentBased(
+            Sampler.traceIdRatioBased(config.getDouble("otel.traces.sampler.arg")));
+        Sampler sampler = TailSamplingCustomizer.customize(configured, config);
+        assertTrue(sampler instanceof InventorySampler,
+            "The inventory sampler should replace the configured sampler");
+
+        Tracer tracer = tracer(sampler, config);
+        for (int i = 0; i < 1000; i++) {
+            tracer.spanBuilder("RefreshCycle").startSpan().end();
+        }
+        int cycles = names().size();
+        assertTrue(cycles > 0 && cycles < 300,
+            "Refresh cycles should be sampled at their own ratio, but " + cycles
+                + " of 1000 were sampled");
+
+        exporter.reset();
+        runRequests(tracer, 100, false);
+        assertEquals(200, names().size(), "Requests should be sampled at the default ratio");
+
+        properties.put(InventorySamplerProvider.ENABLED, "false");
+        config = DefaultConfigProperties.createFromMap(properties);
+        assertSame(configured, TailSamplingCustomizer.customize(configured, config),
+            "The configured sampler should be kept when the inventory sampler is disabled");
+    }
+
+    private void runRequests(Tracer tracer, int requests, boolean fail) {
+        for (int i = 0; i < requests; i++) {
+            Span request = tracer.spanBuilder("request").startSpan();
+            try (Scope scope = request.makeCurrent()) {
+                Span child = tracer.spanBuilder("child").startSpan();
+                if (fail) {
+                    child.setStatus(StatusCode.ERROR);
+                }
+                child.end();
+            }
+            request.end();
+        }
+    }
+
+    private ConfigProperties config(String ratio, Map<String, String> endpoints,
+                                    boolean keepErrors, String slowThreshold) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("otel.traces.sampler", InventorySamplerProvider.NAME);
+        properties.put("otel.traces.sampler.arg", ratio);
+        properties.put(InventorySamplerProvider.ENDPOINTS, endpoints.entrySet().stream()
+            .map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.joining(",")));
+        properties.put(InventorySamplerProvider.KEEP_ERRORS, Boolean.toString(keepErrors));
+        properties.put(InventorySamplerProvider.SLOW_THRESHOLD, slowThreshold);
+        return DefaultConfigProperties.createFromMap(properties);
+    }
+
+    private Tracer tracer(ConfigProperties config) {
+        return tracer(new InventorySamplerProvider().createSampler(config), config);
+    }
+
+    private Tracer tracer(Sampler sampler, ConfigProperties config) {
+        if (tracerProvider != null) {
+            tracerProvider.close();
+        }
+        exporter = InMemorySpanExporter.create();
+        SpanProcessor processor = TailSamplingCustomizer.customize(
+            SimpleSpanProcessor.create(exporter), config);
+        tracerProvider = SdkTracerProvider.builder()
+            .setSampler(sampler)
+            .addSpanProcessor(processor)
+            .build();
+        return tracerProvider.get("inventory");
+    }
+
+    private List<String> names() {
+        return exporter.getFinishedSpanItems().stream()
+                       .map(SpanData::getName)
+                       .collect(Collectors.toList());
+    }
+}
@@ -26,6 +26,8 @@ import jakarta.json.JsonObject;
 import jakarta.servlet.ServletException;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
@@ -161,6 +163,102 @@ public class InventoryEndpointIT {
         badResponse.close();
    }
 
+    @Test
+    @Order(5)
+    public void testBatchRegistration() {
+        Response response = client.target(invUrl + INVENTORY_SYSTEMS + "/batch")
+                                  .request(MediaType.APPLICATION_JSON)
+                                  .post(Entity.json("[\"localhost\", \"badhostname\"]"));
+        this.assertResponse(invUrl, response);
+
+        JsonObject obj = response.readEntity(JsonObject.class);
+        assertEquals(1, obj.getInt("registered"),
+                "localhost should be registered by the batch");
+        assertEquals(1, obj.getInt("failed"),
+                "badhostname should be reported as failed by the batch");
+        assertEquals("badhostname", obj.getJsonArray("results").getJsonObject(1)
+                                       .getString("hostname"),
+                "Results should be reported in request order");
+
+        response.close();
+    }
+
+    @Test
+    @Order(6)
+    public void testPagination() {
+        Response response = this.getResponse(invUrl + INVENTORY_SYSTEMS + "?limit=1");
+        this.assertResponse(invUrl, response);
+
+        JsonObject obj = response.readEntity(JsonObject.class);
+        assertEquals(1, obj.getJsonArray("systems").size(),
+                "A page should hold no more than the requested limit");
+        assertTrue(obj.getInt("total") >= 1,
+                "A page should report the total number of systems");
+
+        response.close();
+    }
+
+    @Test
+    @Order(7)
+    public void testStreaming() {
+        Response response = client.target(invUrl + INVENTORY_SYSTEMS)
+                                  .request("application/x-ndjson")
+                                  .get();
+        this.assertResponse(invUrl, response);
+
+        String body = response.readEntity(String.class);
+        assertTrue(body.startsWith("{") && body.contains("\"hostname\":\"localhost\""),
+                "Each streamed line should hold one system");
+
+        response.close();
+    }
+
+    @Test
+    @Order(8)
+    public void testConditionalList() {
+        Response response = this.getResponse(invUrl + INVENTORY_SYSTEMS);
+        this.assertResponse(invUrl, response);
+        String entityTag = response.getHeaderString(HttpHeaders.ETAG);
+        response.close();
+        assertTrue(entityTag != null, "The inventory list should carry an ETag");
+
+        Response notModified = client.target(invUrl + INVENTORY_SYSTEMS)
+                                     .request()
+                                     .header(HttpHeaders.IF_NONE_MATCH, entityTag)
+                                     .get();
+        assertEquals(304, notModified.getStatus(),
+                "An unchanged inventory should not be sent again");
+        notModified.close();
+
+        Response lookup = this.getResponse(invUrl + INVENTORY_SYSTEMS + "/localhost");
+        this.assertResponse(invUrl, lookup);
+        lookup.close();
+        Response stillNotModified = client.target(invUrl + INVENTORY_SYSTEMS)
+                                          .request()
+                                          .header(HttpHeaders.IF_NONE_MATCH, entityTag)
+                                          .get();
+        assertEquals(304, stillNotModified.getStatus(),
+                "Looking up a host whose properties are unchanged should keep the ETag");
+        stillNotModified.close();
+    }
+
+    @Test
+    @Order(9)
+    public void testHostRemoval() {
+        Response response = client.target(invUrl + INVENTORY_SYSTEMS + "/localhost")
+                                  .request()
+                                  .delete();
+        this.assertResponse(invUrl, response);
+        response.close();
+
+        Response missing = client.target(invUrl + INVENTORY_SYSTEMS + "/localhost")
+                                 .request()
+                                 .delete();
+        assertEquals(404, missing.getStatus(),
+                "A host that was removed should not be removed again");
+        missing.close();
+    }
+
     private Response getResponse(String url) {
         return client.target(url).request().get();
     }
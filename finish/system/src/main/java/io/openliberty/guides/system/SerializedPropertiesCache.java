@@ -0,0 +1,142 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.system;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+
+import io.openliberty.guides.common.PropertiesCodec;
+
+/**
+ * Keeps the JSON and binary forms of the system properties, or of a
+ * projection of them, so that they are only serialized again when the
+ * selected values change. Each serialized form carries an entity tag
+ * derived from its content, so identical content always has the same tag.
+ */
+@ApplicationScoped
+public class SerializedPropertiesCache {
+
+    // Bounds the memory used by arbitrary key selections from clients
+    private static final int MAX_PROJECTIONS = 64;
+
+    private final Jsonb jsonb = JsonbBuilder.create();
+    private final Map<String, SerializedProperties> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the JSON object of the requested properties.
+     * @param keys
+     *          - comma-separated property names, or null for all properties.
+     */
+    public SerializedProperties get(String keys) {
+        String projection = normalize(keys);
+        SortedMap<String, String> values = select(projection);
+        SerializedProperties cached = cache.get(projection);
+        if (cached != null && cached.values.equals(values)) {
+            return cached;
+        }
+        byte[] json = jsonb.toJson(values).getBytes(StandardCharsets.UTF_8);
+        byte[] binary = PropertiesCodec.encode(values);
+        SerializedProperties serialized = new SerializedProperties(values,
+            json, entityTag(json), binary, entityTag(binary));
+        if (cached != null || cache.size() < MAX_PROJECTIONS) {
+            cache.put(projection, serialized);
+        }
+        return serialized;
+    }
+
+    private String entityTag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Sorts and de-duplicates the keys so equivalent requests share an entry
+    private String normalize(String keys) {
+        if (keys == null || keys.isBlank()) {
+            return "";
+        }
+        TreeSet<String> names = new TreeSet<>();
+        for (String key : keys.split(",")) {
+            if (!key.isBlank()) {
+                names.add(key.trim());
+            }
+        }
+        return String.join(",", names);
+    }
+
+    private SortedMap<String, String> select(String projection) {
+        Properties props = System.getProperties();
+        SortedMap<String, String> values = new TreeMap<>();
+        if (projection.isEmpty()) {
+            for (String name : props.stringPropertyNames()) {
+                values.put(name, props.getProperty(name));
+            }
+        } else {
+            for (String name : projection.split(",")) {
+                String value = props.getProperty(name);
+                if (value != null) {
+                    values.put(name, value);
+                }
+            }
+        }
+        return values;
+    }
+
+    public static class SerializedProperties {
+
+        private final SortedMap<String, String> values;
+        private final byte[] json;
+        private final String entityTag;
+        private final byte[] binary;
+        private final String binaryEntityTag;
+
+        SerializedProperties(SortedMap<String, String> values, byte[] json,
+                             String entityTag, byte[] binary, String binaryEntityTag) {
+            this.values = values;
+            this.json = json;
+            this.entityTag = entityTag;
+            this.binary = binary;
+            this.binaryEntityTag = binaryEntityTag;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getEntityTag() {
+            return entityTag;
+        }
+
+        public byte[] getBinary() {
+            return binary;
+        }
+
+        public String getBinaryEntityTag() {
+            return binaryEntityTag;
+        }
+    }
+}
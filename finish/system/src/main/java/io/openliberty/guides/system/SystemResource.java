@@ -11,25 +11,98 @@
 // end::copyright[]
 package io.openliberty.guides.system;
 
-import java.util.Properties;
+import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import jakarta.enterprise.context.RequestScoped;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.ResponseBuilder;
+import jakarta.ws.rs.core.Variant;
 
-@RequestScoped
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.opentelemetry.api.trace.Span;
+
+import io.openliberty.guides.common.PropertiesCodec;
+import io.openliberty.guides.common.SampledLogger;
+import io.openliberty.guides.system.SerializedPropertiesCache.SerializedProperties;
+
+// Application scoped so that every request shares the sampled logger
+@ApplicationScoped
 @Path("properties")
 public class SystemResource {
 
     private static final Logger logger = Logger.getLogger(SystemResource.class.getName());
 
+    /**
+     * The compact form of the properties that the inventory service asks
+     * for, described in {@link PropertiesCodec}.
+     */
+    public static final String BINARY_PROPERTIES = PropertiesCodec.MEDIA_TYPE;
+
+    // JSON comes first so that it is chosen for clients that accept anything
+    private static final List<Variant> VARIANTS = Variant.mediaTypes(
+        MediaType.APPLICATION_JSON_TYPE, MediaType.valueOf(BINARY_PROPERTIES)).build();
+
+    @Inject
+    private SerializedPropertiesCache propertiesCache;
+
+    @Inject
+    @ConfigProperty(name = "system.http.log.rate", defaultValue = "1")
+    int logRate;
+
+    // Logs every request at FINE, otherwise logRate each second at INFO
+    private SampledLogger requests;
+
+    @PostConstruct
+    public void init() {
+        this.requests = new SampledLogger(logger,
+            "Received request to fetch system properties: {0}", logRate);
+    }
+
+    /**
+     * Returns the JVM system properties, or only the properties named in
+     * the comma-separated keys query parameter. The response carries an
+     * ETag, and a request whose If-None-Match header still matches it is
+     * answered with 304 Not Modified and no body. Clients that prefer
+     * {@value #BINARY_PROPERTIES} in their Accept header get the binary
+     * form, with its own ETag, instead of JSON.
+     */
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Properties getProperties() {
-        logger.info("Received request to fetch system properties.");
-        return System.getProperties();
+    @Produces({ MediaType.APPLICATION_JSON, BINARY_PROPERTIES })
+    public Response getProperties(@QueryParam("keys") String keys,
+                                  @Context Request request) {
+        Level level = requests.sample();
+        if (level != null) {
+            requests.log(level, Span.current(), keys == null ? "all" : keys);
+        }
+        SerializedProperties properties = propertiesCache.get(keys);
+        Variant variant = request.selectVariant(VARIANTS);
+        boolean binary = variant != null
+            && BINARY_PROPERTIES.equals(variant.getMediaType().toString());
+        EntityTag entityTag = new EntityTag(binary ? properties.getBinaryEntityTag()
+                                                   : properties.getEntityTag());
+        ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+        if (notModified != null) {
+            return notModified.header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+        }
+        return Response.ok(binary ? properties.getBinary() : properties.getJson(),
+                           binary ? MediaType.valueOf(BINARY_PROPERTIES)
+                                  : MediaType.APPLICATION_JSON_TYPE)
+                       .tag(entityTag)
+                       .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                       .build();
     }
 }
@@ -0,0 +1,161 @@
+// tag::copyright[]
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *******************************************************************************/
+// end::copyright[]
+package io.openliberty.guides.system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import io.openliberty.guides.common.PropertiesCodec;
+import io.openliberty.guides.system.SerializedPropertiesCache.SerializedProperties;
+
+public class SerializedPropertiesCacheTest {
+
+    private static final String TEST_KEY = "inventory.test.value";
+    private static final int ITERATIONS = 20_000;
+
+    private final SerializedPropertiesCache cache = new SerializedPropertiesCache();
+
+    @AfterEach
+    public void teardown() {
+        System.clearProperty(TEST_KEY);
+    }
+
+    @Test
+    public void testProjection() {
+        JsonObject obj = parse(cache.get("user.name, os.name,missing.key").getJson());
+
+        assertEquals(2, obj.size(), "Only the existing requested keys should be returned");
+        assertEquals(System.getProperty("os.name"), obj.getString("os.name"));
+        assertEquals(System.getProperty("user.name"), obj.getString("user.name"));
+    }
+
+    @Test
+    public void testAllProperties() {
+        JsonObject obj = parse(cache.get(null).getJson());
+
+        assertEquals(System.getProperties().stringPropertyNames().size(), obj.size());
+        assertEquals(System.getProperty("java.version"), obj.getString("java.version"));
+    }
+
+    @Test
+    public void testBinaryForm() throws Exception {
+        System.setProperty(TEST_KEY, "\u00e9t\u00e9 " + "x".repeat(200));
+        SerializedProperties properties = cache.get(TEST_KEY + ",os.name");
+        DataInputStream in = new DataInputStream(
+            new ByteArrayInputStream(properties.getBinary()));
+
+        assertEquals(2, readVarint(in));
+        assertEquals(TEST_KEY, readString(in));
+        assertEquals(System.getProperty(TEST_KEY), readString(in));
+        assertEquals("os.name", readString(in));
+        assertEquals(System.getProperty("os.name"), readString(in));
+        assertEquals(-1, in.read());
+        // The inventory service reads the form with the same codec
+        Properties decoded = PropertiesCodec.decode(
+            new ByteArrayInputStream(properties.getBinary()));
+        assertEquals(System.getProperty(TEST_KEY), decoded.getProperty(TEST_KEY));
+        assertEquals(2, decoded.size());
+        assertNotEquals(properties.getEntityTag(), properties.getBinaryEntityTag(),
+            "Each form should have its own entity tag");
+    }
+
+    @Test
+    public void testSerializedOnlyWhenPropertiesChange() {
+        System.setProperty(TEST_KEY, "1");
+        SerializedProperties first = cache.get(TEST_KEY + ",os.name");
+
+        assertSame(first.getJson(), cache.get("os.name," + TEST_KEY).getJson(),
+            "Unchanged properties should reuse the cached JSON");
+
+        System.setProperty(TEST_KEY, "2");
+        SerializedProperties changed = cache.get(TEST_KEY + ",os.name");
+        assertNotSame(first.getJson(), changed.getJson(),
+            "A changed property should be serialized again");
+        assertNotEquals(first.getEntityTag(), changed.getEntityTag(),
+            "Changed content should have a different entity tag");
+        assertEquals("2", parse(changed.getJson()).getString(TEST_KEY));
+
+        System.setProperty(TEST_KEY, "1");
+        assertEquals(first.getEntityTag(), cache.get(TEST_KEY + ",os.name").getEntityTag(),
+            "The entity tag should only depend on the content");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkResponseSizeAndSerialization() {
+        Jsonb jsonb = JsonbBuilder.create();
+        String keys = "os.name,user.name";
+        int fullSize = 0;
+        int projectedSize = 0;
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            fullSize = jsonb.toJson(System.getProperties())
+                            .getBytes(StandardCharsets.UTF_8).length;
+            projectedSize = cache.get(keys).getJson().length;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            jsonb.toJson(System.getProperties()).getBytes(StandardCharsets.UTF_8);
+        }
+        long before = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            cache.get(keys);
+        }
+        long after = (System.nanoTime() - start) / ITERATIONS;
+
+        System.out.printf("System properties response: full %d bytes, %d ns/op;"
+            + " projected and cached %d bytes, %d ns/op%n",
+            fullSize, before, projectedSize, after);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarint(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private JsonObject parse(byte[] json) {
+        return Json.createReader(new StringReader(
+            new String(json, StandardCharsets.UTF_8))).readObject();
+    }
+}
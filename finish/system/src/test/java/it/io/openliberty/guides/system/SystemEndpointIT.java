@@ -45,4 +45,52 @@ public class SystemEndpointIT {
         response.close();
         client.close();
     }
+
+    @Test
+    public void testGetProjectedProperties() {
+        String port = System.getProperty("sys.http.port");
+        String url = "http://localhost:" + port + "/";
+
+        Client client = ClientBuilder.newClient();
+
+        WebTarget target = client.target(url + "system/properties")
+                                 .queryParam("keys", "os.name,user.name");
+        Response response = target.request().get();
+
+        assertEquals(200, response.getStatus(),
+                "Incorrect response code from " + url);
+
+        JsonObject obj = response.readEntity(JsonObject.class);
+
+        assertEquals(2, obj.size(),
+                "Only the requested system properties should be returned");
+        assertEquals(System.getProperty("os.name"), obj.getString("os.name"),
+                "The system property for the local and remote JVM should match");
+
+        response.close();
+        client.close();
+    }
+
+    @Test
+    public void testConditionalGetProperties() {
+        String port = System.getProperty("sys.http.port");
+        String url = "http://localhost:" + port + "/";
+
+        Client client = ClientBuilder.newClient();
+
+        WebTarget target = client.target(url + "system/properties");
+        Response response = target.request().get();
+        String entityTag = response.getHeaderString("ETag");
+        response.close();
+
+        Response notModified = target.request()
+                                     .header("If-None-Match", entityTag)
+                                     .get();
+
+        assertEquals(304, notModified.getStatus(),
+                "Unchanged system properties should not be sent again");
+
+        notModified.close();
+        client.close();
+    }
 }
@@ -2,6 +2,14 @@
 set -euxo pipefail
 
 testApp() {
+    # Installs the module that the services share, when there is one
+    if [ -d common ]; then
+        mvn -ntp -Dhttp.keepAlive=false \
+            -Dmaven.wagon.http.pool=false \
+            -Dmaven.wagon.httpconnectionManager.ttlSeconds=120 \
+            -pl common -q clean install
+    fi
+
     mvn -ntp -Dhttp.keepAlive=false \
         -Dmaven.wagon.http.pool=false \
         -Dmaven.wagon.httpconnectionManager.ttlSeconds=120 \